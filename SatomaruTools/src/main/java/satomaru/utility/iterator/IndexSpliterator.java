@@ -0,0 +1,220 @@
+package satomaru.utility.iterator;
+
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * インデックスから値を作る関数による Spliterator です。
+ *
+ * <p>
+ * {@link FunctionIterator#of(java.util.function.Function)} と同じく、インデックス（0から始まる）から値を作りますが、
+ * インデックスの範囲が決まっているので、要素数が分かっており（SIZED）、範囲を正確に分割できます。
+ * 従って、並列 Stream でも効率よく処理でき、{@link #skip(long)} も O(1) で行えます。
+ * </p>
+ *
+ * <p>
+ * {@link FunctionIterator} と異なり、値がnullであっても終了しません。
+ * 関数は、同じインデックスに対して常に同じ値を返却する（副作用を持たない）必要があります。
+ * </p>
+ *
+ * @param <E> 要素の型
+ */
+public final class IndexSpliterator<E> implements Spliterator<E> {
+
+	/**
+	 * インデックスから値を作る関数を用いて、Spliterator を作成します。
+	 *
+	 * <p>
+	 * インデックスの範囲は、0 から Integer.MAX_VALUE まで（Integer.MAX_VALUE を含まない）です。
+	 * </p>
+	 *
+	 * @param function インデックスから値を作る関数
+	 * @return Spliterator
+	 */
+	public static <E> IndexSpliterator<E> of(IntFunction<? extends E> function) {
+		return of(function, 0, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * インデックスから値を作る関数を用いて、範囲を指定して Spliterator を作成します。
+	 *
+	 * @param function インデックスから値を作る関数
+	 * @param origin 開始インデックス（このインデックスを含む）
+	 * @param fence 終了インデックス（このインデックスを含まない）
+	 * @return Spliterator
+	 * @throws IllegalArgumentException 範囲が不正な場合
+	 */
+	public static <E> IndexSpliterator<E> of(IntFunction<? extends E> function, int origin, int fence) {
+		if (origin < 0 || origin > fence) {
+			throw new IllegalArgumentException(String.format("origin: %d, fence: %d", origin, fence));
+		}
+
+		return new IndexSpliterator<>(function, origin, fence);
+	}
+
+	/**
+	 * 整数カウンターの Spliterator を作成します。
+	 *
+	 * <p>
+	 * {@link Iterators#counter(int, int)} と同じ値を、指定された数だけ作ります。
+	 * </p>
+	 *
+	 * @param start 開始値
+	 * @param step 増加値
+	 * @param count 値の数
+	 * @return Spliterator
+	 */
+	public static IndexSpliterator<Integer> counter(int start, int step, int count) {
+		return of(i -> i * step + start, 0, count);
+	}
+
+	/**
+	 * 配列の Spliterator を作成します。
+	 *
+	 * <p>
+	 * {@link Iterators#array(Object...)} と異なり、配列中にnullが存在しても終了しません。
+	 * </p>
+	 *
+	 * @param values 配列
+	 * @return Spliterator
+	 */
+	@SafeVarargs
+	public static <E> IndexSpliterator<E> array(E... values) {
+		return of(i -> values[i], 0, values.length);
+	}
+
+	/**
+	 * 配列を先頭から順番に使用し、最後まで使用したらまた先頭に戻る Spliterator を作成します。
+	 *
+	 * @param count 値の数
+	 * @param values 使用する配列
+	 * @return Spliterator
+	 * @throws NoSuchElementException 配列が空の場合
+	 */
+	@SafeVarargs
+	public static <E> IndexSpliterator<E> rotator(int count, E... values) {
+		if (values.length == 0) {
+			throw new NoSuchElementException();
+		}
+
+		return of(i -> values[i % values.length], 0, count);
+	}
+
+	/** インデックスから値を作る関数。 */
+	private final IntFunction<? extends E> function;
+
+	/** 現在のインデックス。 */
+	private int index;
+
+	/** 終了インデックス（このインデックスを含まない）。 */
+	private final int fence;
+
+	/**
+	 * コンストラクタ。
+	 *
+	 * @param function インデックスから値を作る関数
+	 * @param origin 開始インデックス（このインデックスを含む）
+	 * @param fence 終了インデックス（このインデックスを含まない）
+	 */
+	private IndexSpliterator(IntFunction<? extends E> function, int origin, int fence) {
+		this.function = function;
+		this.index = origin;
+		this.fence = fence;
+	}
+
+	/**
+	 * 指定された数の要素を読み飛ばします。
+	 *
+	 * <p>
+	 * 関数を呼び出さずに、インデックスを進めるだけです。
+	 * </p>
+	 *
+	 * @param n 読み飛ばす要素の数
+	 * @return このインスタンス自身
+	 * @throws IllegalArgumentException 要素の数が負の場合
+	 */
+	public IndexSpliterator<E> skip(long n) {
+		if (n < 0) {
+			throw new IllegalArgumentException("n: " + n);
+		}
+
+		index = (int) Math.min(fence, index + n);
+		return this;
+	}
+
+	/**
+	 * この Spliterator の Stream を作成します。
+	 *
+	 * @param parallel 並列 Stream を作成する場合はtrue
+	 * @return Stream
+	 */
+	public Stream<E> stream(boolean parallel) {
+		return StreamSupport.stream(this, parallel);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean tryAdvance(Consumer<? super E> action) {
+		if (index >= fence) {
+			return false;
+		}
+
+		action.accept(function.apply(index++));
+		return true;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void forEachRemaining(Consumer<? super E> action) {
+		int i = index;
+		index = fence;
+
+		for (; i < fence; i++) {
+			action.accept(function.apply(i));
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>
+	 * 残りの範囲を、インデックスで正確に半分に分割します。
+	 * </p>
+	 */
+	@Override
+	public Spliterator<E> trySplit() {
+		int origin = index;
+		int mid = (origin + fence) >>> 1;
+
+		if (origin >= mid) {
+			return null;
+		}
+
+		index = mid;
+		return new IndexSpliterator<>(function, origin, mid);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long estimateSize() {
+		return fence - index;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int characteristics() {
+		return ORDERED | SIZED | SUBSIZED | IMMUTABLE;
+	}
+}
@@ -0,0 +1,302 @@
+package satomaru.utility.iterator;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * イテレーターを、並列 Stream で扱いやすくする Spliterator です。
+ *
+ * <p>
+ * 分割する時は、イテレーターから一定数（バッチ）の要素を取得して配列にし、その配列を分割可能な Spliterator として切り出します。
+ * {@link Spliterators#spliteratorUnknownSize(Iterator, int)} はバッチを一定量ずつ増やしますが、
+ * この Spliterator は、バッチを取得するのに掛かった時間が目標に近付くように、バッチの大きさを倍々に増減させます。
+ * 従って、遅いソースでは小さなバッチで早く並列化を始め、速いソースでは大きなバッチで分割の回数を抑えます。
+ * </p>
+ *
+ * <p>
+ * 先読みを指定した場合は、バックグラウンドのスレッドでイテレーターから要素を取得しておくので、
+ * イテレーターの待ち時間と、後続の処理を重ねられます。
+ * </p>
+ *
+ * @param <E> 要素の型
+ */
+public final class IteratorSpliterator<E> implements Spliterator<E> {
+
+	/**
+	 * イテレーターの Spliterator を作成します。
+	 *
+	 * @param <E> 要素の型
+	 */
+	public static final class Builder<E> {
+
+		/** 元のイテレーター。 */
+		private final Iterator<? extends E> iterator;
+
+		/** バッチの最小の大きさ。 */
+		private int minBatch = 16;
+
+		/** バッチの最大の大きさ。 */
+		private int maxBatch = 1 << 20;
+
+		/** バッチを取得する時間の目標（ナノ秒）。 */
+		private long targetNanos = Duration.ofMillis(1).toNanos();
+
+		/** 要素数の見積もり。 */
+		private long sizeHint = Long.MAX_VALUE;
+
+		/** 先読みするバッファーの大きさ（0の場合は先読みしない）。 */
+		private int prefetch;
+
+		/**
+		 * コンストラクタ。
+		 *
+		 * @param iterator 元のイテレーター
+		 */
+		private Builder(Iterator<? extends E> iterator) {
+			this.iterator = iterator;
+		}
+
+		/**
+		 * バッチの大きさの範囲を指定します（既定値は16から1048576）。
+		 *
+		 * <p>
+		 * 最小と最大に同じ値を指定すると、バッチの大きさは固定になります。
+		 * </p>
+		 *
+		 * @param min バッチの最小の大きさ（最初のバッチの大きさ）
+		 * @param max バッチの最大の大きさ
+		 * @return このインスタンス自身
+		 * @throws IllegalArgumentException 範囲が不正な場合
+		 */
+		public Builder<E> batch(int min, int max) {
+			if (min < 1 || min > max) {
+				throw new IllegalArgumentException(String.format("min: %d, max: %d", min, max));
+			}
+
+			minBatch = min;
+			maxBatch = max;
+			return this;
+		}
+
+		/**
+		 * 1つのバッチを取得する時間の目標を指定します（既定値は1ミリ秒）。
+		 *
+		 * <p>
+		 * ナノ秒で表せない（約292年を超える）時間は、ナノ秒で表せる最大の時間として扱います。
+		 * </p>
+		 *
+		 * @param target 1つのバッチを取得する時間の目標
+		 * @return このインスタンス自身
+		 * @throws IllegalArgumentException 時間が0以下の場合
+		 */
+		public Builder<E> targetBatchTime(Duration target) {
+			if (target.isZero() || target.isNegative()) {
+				throw new IllegalArgumentException("target: " + target);
+			}
+
+			targetNanos = (target.compareTo(Duration.ofNanos(Long.MAX_VALUE)) >= 0) ? Long.MAX_VALUE : target.toNanos();
+			return this;
+		}
+
+		/**
+		 * 要素数の見積もりを指定します。
+		 *
+		 * <p>
+		 * 見積もりは、並列 Stream がどこまで分割するかの判断に用います。正確である必要はありません。
+		 * </p>
+		 *
+		 * @param size 要素数の見積もり
+		 * @return このインスタンス自身
+		 */
+		public Builder<E> sizeHint(long size) {
+			sizeHint = size;
+			return this;
+		}
+
+		/**
+		 * バックグラウンドのスレッドで先読みします。
+		 *
+		 * @param capacity 先読みするバッファーの大きさ
+		 * @return このインスタンス自身
+		 * @throws IllegalArgumentException 大きさが1未満の場合
+		 */
+		public Builder<E> prefetch(int capacity) {
+			if (capacity < 1) {
+				throw new IllegalArgumentException("capacity: " + capacity);
+			}
+
+			prefetch = capacity;
+			return this;
+		}
+
+		/**
+		 * Spliterator を作成します。
+		 *
+		 * @return Spliterator
+		 */
+		public IteratorSpliterator<E> build() {
+			Iterator<? extends E> source = (prefetch > 0) ? new PrefetchIterator<>(iterator, prefetch) : iterator;
+			return new IteratorSpliterator<>(source, minBatch, maxBatch, targetNanos, sizeHint);
+		}
+
+		/**
+		 * Stream を作成します。
+		 *
+		 * <p>
+		 * 先読みする場合、Stream を close するとバックグラウンドのスレッドを終了させます。
+		 * </p>
+		 *
+		 * @param parallel 並列 Stream を作成する場合はtrue
+		 * @return Stream
+		 */
+		public Stream<E> stream(boolean parallel) {
+			IteratorSpliterator<E> spliterator = build();
+			return StreamSupport.stream(spliterator, parallel).onClose(spliterator::close);
+		}
+	}
+
+	/**
+	 * イテレーターの Spliterator のビルダーを作成します。
+	 *
+	 * @param iterator 元のイテレーター
+	 * @return ビルダー
+	 */
+	public static <E> Builder<E> of(Iterator<? extends E> iterator) {
+		return new Builder<>(iterator);
+	}
+
+	/** 元のイテレーター。 */
+	private final Iterator<? extends E> iterator;
+
+	/** バッチの最小の大きさ。 */
+	private final int minBatch;
+
+	/** バッチの最大の大きさ。 */
+	private final int maxBatch;
+
+	/** バッチを取得する時間の目標（ナノ秒）。 */
+	private final long targetNanos;
+
+	/** 残りの要素数の見積もり。 */
+	private long estimate;
+
+	/** 次のバッチの大きさ。 */
+	private int batch;
+
+	/**
+	 * コンストラクタ。
+	 *
+	 * @param iterator 元のイテレーター
+	 * @param minBatch バッチの最小の大きさ
+	 * @param maxBatch バッチの最大の大きさ
+	 * @param targetNanos バッチを取得する時間の目標
+	 * @param sizeHint 要素数の見積もり
+	 */
+	private IteratorSpliterator(Iterator<? extends E> iterator, int minBatch, int maxBatch, long targetNanos, long sizeHint) {
+		this.iterator = iterator;
+		this.minBatch = minBatch;
+		this.maxBatch = maxBatch;
+		this.targetNanos = targetNanos;
+		this.estimate = sizeHint;
+		this.batch = minBatch;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean tryAdvance(Consumer<? super E> action) {
+		if (!iterator.hasNext()) {
+			return false;
+		}
+
+		action.accept(iterator.next());
+		consumed(1);
+		return true;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void forEachRemaining(Consumer<? super E> action) {
+		iterator.forEachRemaining(action);
+		estimate = 0;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>
+	 * イテレーターから1バッチ分の要素を取得し、配列の Spliterator として返却します。
+	 * 取得に掛かった時間が目標の半分未満であれば次のバッチを倍にし、目標の倍を超えていれば半分にします。
+	 * </p>
+	 */
+	@Override
+	public Spliterator<E> trySplit() {
+		if (!iterator.hasNext()) {
+			return null;
+		}
+
+		int size = batch;
+		Object[] array = new Object[size];
+		int n = 0;
+		long start = System.nanoTime();
+
+		do {
+			array[n++] = iterator.next();
+		} while (n < size && iterator.hasNext());
+
+		long elapsed = System.nanoTime() - start;
+
+		if (elapsed < targetNanos / 2) {
+			batch = (int) Math.min(maxBatch, (long) batch * 2);
+		} else if (elapsed / 2 > targetNanos) {
+			batch = Math.max(minBatch, batch / 2);
+		}
+
+		consumed(n);
+		return Spliterators.spliterator(array, 0, n, ORDERED);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long estimateSize() {
+		return estimate;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int characteristics() {
+		return ORDERED;
+	}
+
+	/**
+	 * 先読みしている場合は、バックグラウンドのスレッドを終了させます。
+	 */
+	public void close() {
+		if (iterator instanceof PrefetchIterator) {
+			((PrefetchIterator<?>) iterator).close();
+		}
+	}
+
+	/**
+	 * 取得した要素の数だけ、残りの要素数の見積もりを減らします。
+	 *
+	 * @param n 取得した要素の数
+	 */
+	private void consumed(int n) {
+		if (estimate != Long.MAX_VALUE) {
+			estimate = Math.max(estimate - n, 1);
+		}
+	}
+}
@@ -2,6 +2,7 @@ package satomaru.utility.iterator;
 
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
 
 /**
  * イテレーターに関するユーティリティです。
@@ -41,6 +42,64 @@ public final class Iterators {
 		return counter(1, 1);
 	}
 
+	/**
+	 * ボクシングしない、int のカウンターのイテレーターを作成します。
+	 * 
+	 * <p>
+	 * {@link #counter(int, int)} と同じ値を、無限に生成します。
+	 * </p>
+	 * 
+	 * @param start 開始値
+	 * @param step 増加値
+	 * @return イテレーター
+	 */
+	public static PrimitiveIterator.OfInt intCounter(int start, int step) {
+		return new PrimitiveIterator.OfInt() {
+
+			/** 次の値。 */
+			private int next = start;
+
+			@Override
+			public boolean hasNext() {
+				return true;
+			}
+
+			@Override
+			public int nextInt() {
+				int value = next;
+				next += step;
+				return value;
+			}
+		};
+	}
+
+	/**
+	 * ボクシングしない、long のカウンターのイテレーターを作成します。
+	 * 
+	 * @param start 開始値
+	 * @param step 増加値
+	 * @return イテレーター
+	 */
+	public static PrimitiveIterator.OfLong longCounter(long start, long step) {
+		return new PrimitiveIterator.OfLong() {
+
+			/** 次の値。 */
+			private long next = start;
+
+			@Override
+			public boolean hasNext() {
+				return true;
+			}
+
+			@Override
+			public long nextLong() {
+				long value = next;
+				next += step;
+				return value;
+			}
+		};
+	}
+
 	/**
 	 * 配列のイテレーターを作成します。
 	 * 
@@ -0,0 +1,170 @@
+package satomaru.utility.iterator;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * 別スレッドで先読みするイテレーターです。
+ *
+ * <p>
+ * 元のイテレーターから、バックグラウンドのスレッドでバッファーが一杯になるまで要素を取得しておきます。
+ * 遅いソース（カーソルやネットワークのページなど）の待ち時間と、後続の処理を重ねる為に用います。
+ * バックグラウンドのスレッドは、最初に要素を取得する時に開始します。
+ * </p>
+ *
+ * <p>
+ * 最後まで取得せずに使い終わる場合は、{@link #close()} を呼び出してスレッドを終了させてください。
+ * </p>
+ *
+ * @param <E> 要素の型
+ */
+final class PrefetchIterator<E> implements Iterator<E>, AutoCloseable {
+
+	/** nullの要素の代わりにバッファーに入れるオブジェクト。 */
+	private static final Object NULL = new Object();
+
+	/** 終端を表すオブジェクト。 */
+	private static final Object END = new Object();
+
+	/**
+	 * 元のイテレーターで発生した例外を、バッファーに入れる為のオブジェクトです。
+	 */
+	private static final class Thrown {
+
+		/** 元のイテレーターで発生した例外（Error や、宣言されていない検査例外を含む）。 */
+		final Throwable exception;
+
+		/**
+		 * コンストラクタ。
+		 *
+		 * @param exception 元のイテレーターで発生した例外
+		 */
+		Thrown(Throwable exception) {
+			this.exception = exception;
+		}
+	}
+
+	/** 元のイテレーター。 */
+	private final Iterator<? extends E> source;
+
+	/** 先読みした要素のバッファー。 */
+	private final BlockingQueue<Object> buffer;
+
+	/** バックグラウンドのスレッド（開始していない場合はnull）。 */
+	private Thread thread;
+
+	/** 次の要素（取得していない場合はnull）。 */
+	private Object next;
+
+	/**
+	 * コンストラクタ。
+	 *
+	 * @param source 元のイテレーター
+	 * @param capacity バッファーの大きさ
+	 */
+	PrefetchIterator(Iterator<? extends E> source, int capacity) {
+		this.source = source;
+		this.buffer = new ArrayBlockingQueue<>(capacity);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean hasNext() {
+		if (next == null) {
+			next = take();
+		}
+
+		if (next instanceof Thrown) {
+			throw PrefetchIterator.<RuntimeException> rethrow(((Thrown) next).exception);
+		}
+
+		return next != END;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public E next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+
+		Object value = next;
+		next = null;
+		return (value == NULL) ? null : (E) value;
+	}
+
+	/**
+	 * バックグラウンドのスレッドを終了させます。
+	 */
+	@Override
+	public void close() {
+		if (thread != null) {
+			thread.interrupt();
+		}
+	}
+
+	/**
+	 * バッファーから次の要素を取得します。
+	 *
+	 * @return 次の要素
+	 */
+	private Object take() {
+		if (thread == null) {
+			thread = new Thread(this::fill, "satomaru-prefetch");
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		try {
+			return buffer.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted while waiting for the prefetch thread", e);
+		}
+	}
+
+	/**
+	 * 元のイテレーターから要素を取得して、バッファーに入れます（バックグラウンドのスレッドで実行します）。
+	 */
+	private void fill() {
+		Object terminal = END;
+
+		try {
+			while (source.hasNext()) {
+				E value = source.next();
+				buffer.put((value == null) ? NULL : value);
+			}
+		} catch (InterruptedException e) {
+			// close された
+			return;
+		} catch (Throwable e) {
+			// Error で終わっても、取得側が待ち続けないよう必ず終端を入れる
+			terminal = new Thrown(e);
+		}
+
+		try {
+			buffer.put(terminal);
+		} catch (InterruptedException e) {
+			// close された
+		}
+	}
+
+	/**
+	 * 元のイテレーターで発生した例外を、そのまま送出します（検査例外も、宣言せずに送出します）。
+	 *
+	 * @param exception 元のイテレーターで発生した例外
+	 * @return 戻りません（throw 文で呼び出す為の型）
+	 * @throws X 元のイテレーターで発生した例外
+	 */
+	@SuppressWarnings("unchecked")
+	private static <X extends Throwable> X rethrow(Throwable exception) throws X {
+		throw (X) exception;
+	}
+}
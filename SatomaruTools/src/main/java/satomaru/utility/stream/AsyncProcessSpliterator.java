@@ -0,0 +1,239 @@
+package satomaru.utility.stream;
+
+import java.util.ArrayDeque;
+import java.util.Spliterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+import satomaru.utility.tools.Result;
+import satomaru.utility.tools.Result.Processor;
+
+/**
+ * 処理結果を Executor 上で処理する Spliterator です。
+ *
+ * <p>
+ * 同時に処理する数を上限までに抑え、上限に達している間は上流から要素を取得しません。
+ * 従って、上流が無限であっても、保持する要素の数は上限を超えません。
+ * </p>
+ *
+ * <p>
+ * 並列化は Executor で行うので、この Spliterator は分割しません。
+ * </p>
+ *
+ * <p>
+ * 途中で終了する場合は {@link #cancel()} を呼び出して、まだ開始していない処理を取り消してください。
+ * </p>
+ *
+ * @param <T> 処理対象の型
+ * @param <R> 処理結果の型
+ */
+final class AsyncProcessSpliterator<T, R> implements Spliterator<Result<R>> {
+
+	/** 元となる Spliterator。 */
+	private final Spliterator<Result<T>> source;
+
+	/** 処理を行う関数。 */
+	private final Processor<? super T, ? extends R> processor;
+
+	/** 処理を行う Executor。 */
+	private final Executor executor;
+
+	/** 同時に処理する数の上限。 */
+	private final int maxInFlight;
+
+	/** 出現順を維持する場合はtrue。 */
+	private final boolean ordered;
+
+	/** 処理中の要素（出現順）。 */
+	private final ArrayDeque<CompletableFuture<Result<R>>> window;
+
+	/** 出現順を維持しない場合の、処理が完了した要素（完了順）。 */
+	private final BlockingQueue<CompletableFuture<Result<R>>> completed;
+
+	/** 上流の要素を全て取得した場合はtrue。 */
+	private boolean exhausted;
+
+	/**
+	 * コンストラクタ。
+	 *
+	 * @param source 元となる Spliterator
+	 * @param processor 処理を行う関数
+	 * @param executor 処理を行う Executor
+	 * @param maxInFlight 同時に処理する数の上限
+	 * @param ordered 出現順を維持する場合はtrue
+	 */
+	AsyncProcessSpliterator(
+			Spliterator<Result<T>> source,
+			Processor<? super T, ? extends R> processor,
+			Executor executor,
+			int maxInFlight,
+			boolean ordered) {
+
+		this.source = source;
+		this.processor = processor;
+		this.executor = executor;
+		this.maxInFlight = maxInFlight;
+		this.ordered = ordered;
+		this.window = new ArrayDeque<>(maxInFlight);
+		this.completed = ordered ? null : new LinkedBlockingQueue<>();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>
+	 * 出現順を維持する場合は、先頭の要素の処理が完了するまで待機します。
+	 * 維持しない場合は、いずれかの要素の処理が完了するまで待機します。
+	 * </p>
+	 */
+	@Override
+	public boolean tryAdvance(Consumer<? super Result<R>> action) {
+		try {
+			return ordered ? advanceOrdered(action) : advanceUnordered(action);
+		} catch (RuntimeException | Error e) {
+			// 後続で例外が発生して終了する場合は、処理待ちの要素を取り消す
+			cancel();
+			throw e;
+		}
+	}
+
+	/**
+	 * 処理中の要素を取り消し、以降は要素を渡さないようにします。
+	 *
+	 * <p>
+	 * まだ開始していない処理は実行されなくなります。実行中の処理は中断しません。
+	 * </p>
+	 */
+	void cancel() {
+		exhausted = true;
+
+		for (CompletableFuture<Result<R>> future : window) {
+			future.cancel(false);
+		}
+
+		window.clear();
+
+		if (completed != null) {
+			completed.clear();
+		}
+	}
+
+	/**
+	 * 出現順を維持して、次の要素を取得します。
+	 *
+	 * @param action 要素を受け取る関数
+	 * @return 要素があった場合はtrue
+	 */
+	private boolean advanceOrdered(Consumer<? super Result<R>> action) {
+		fill();
+		CompletableFuture<Result<R>> head = window.poll();
+
+		if (head == null) {
+			return false;
+		}
+
+		action.accept(head.join());
+		return true;
+	}
+
+	/**
+	 * 完了した順に、次の要素を取得します。
+	 *
+	 * @param action 要素を受け取る関数
+	 * @return 要素があった場合はtrue
+	 */
+	private boolean advanceUnordered(Consumer<? super Result<R>> action) {
+		fill();
+
+		if (window.isEmpty()) {
+			return false;
+		}
+
+		CompletableFuture<Result<R>> future;
+
+		try {
+			future = completed.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted while waiting for the processor", e);
+		}
+
+		window.remove(future);
+		action.accept(future.join());
+		return true;
+	}
+
+	/**
+	 * 上限に達するまで、上流から要素を取得して処理を開始します。
+	 *
+	 * <p>
+	 * 出現順を維持しない場合は、正常・例外を問わず、完了した Future を完了順のキューに入れます。
+	 * </p>
+	 */
+	private void fill() {
+		while (!exhausted && window.size() < maxInFlight) {
+			exhausted = !source.tryAdvance(r -> {
+				CompletableFuture<Result<R>> future = submit(r);
+				window.add(future);
+
+				if (!ordered) {
+					future.whenComplete((result, e) -> completed.add(future));
+				}
+			});
+		}
+	}
+
+	/**
+	 * 要素の処理を開始します。
+	 *
+	 * <p>
+	 * 例外が発生していた要素は、Executor を使わずにそのまま完了します。
+	 * Executor が受け付けない場合は、その例外が発生した扱いで完了します。
+	 * </p>
+	 *
+	 * @param result 要素
+	 * @return 処理結果の Future
+	 */
+	private CompletableFuture<Result<R>> submit(Result<T> result) {
+		if (result.isNg()) {
+			return CompletableFuture.completedFuture(result.process(processor));
+		}
+
+		try {
+			return CompletableFuture.supplyAsync(() -> result.process(processor), executor);
+		} catch (RejectedExecutionException e) {
+			return CompletableFuture.completedFuture(Result.ng(e));
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Spliterator<Result<R>> trySplit() {
+		return null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long estimateSize() {
+		long pending = window.size();
+		long remaining = source.estimateSize();
+		return (remaining == Long.MAX_VALUE) ? remaining : remaining + pending;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int characteristics() {
+		int characteristics = source.characteristics() & (ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE);
+		return ordered ? characteristics : characteristics & ~ORDERED;
+	}
+}
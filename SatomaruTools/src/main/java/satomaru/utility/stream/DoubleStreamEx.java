@@ -0,0 +1,141 @@
+package satomaru.utility.stream;
+
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.DoubleFunction;
+import java.util.function.DoubleUnaryOperator;
+import java.util.stream.DoubleStream;
+import java.util.stream.StreamSupport;
+
+import satomaru.utility.tools.Pair;
+import satomaru.utility.tools.Result;
+
+/**
+ * double 値を要素とする拡張 Stream です。
+ *
+ * <p>
+ * {@link StreamEx} と同じ拡張機能を、{@link DoubleStream} を用いて提供します。
+ * 要素をボクシングしないので、数値を扱う処理で要素ごとのオブジェクト生成を避けられます。
+ * ただし、{@link #with(Class)} と {@link #pair(DoubleFunction)} は、オブジェクトの Stream に変換するので、ボクシングします。
+ * </p>
+ */
+public interface DoubleStreamEx {
+
+	/**
+	 * double 値を処理します。
+	 *
+	 * @param <R> 処理結果の型
+	 */
+	interface Processor<R> {
+
+		/**
+		 * 処理を行います。
+		 *
+		 * @param value 処理対象
+		 * @return 処理結果
+		 * @throws Exception 処理中に発生した例外
+		 */
+		R process(double value) throws Exception;
+	}
+
+	/**
+	 * 通常の Stream にマッピングします。
+	 *
+	 * @return 通常の Stream
+	 */
+	DoubleStream unwrap();
+
+	/**
+	 * オブジェクトの拡張 Stream にマッピングします。
+	 *
+	 * @return オブジェクトの拡張 Stream
+	 */
+	default StreamEx<Double> boxed() {
+		return StreamEx.of(unwrap().boxed());
+	}
+
+	/**
+	 * 処理部品を呼び出すことが可能な拡張 Stream を作成します。
+	 *
+	 * @param processorType 呼び出したい処理部品の型
+	 * @return 処理部品を呼び出すことが可能な拡張 Stream
+	 */
+	default <P> InjectedStream<P, Double> with(Class<P> processorType) {
+		return new InjectedStreamImpl<>(unwrap().boxed(), new AtomicReference<>());
+	}
+
+	/**
+	 * 2つの値を扱う拡張 Stream を作成します。
+	 *
+	 * @param mapper 現在の値から2つめの値を作成する関数
+	 * @return 現在の値と、関数によって作成された値の、2つの値を扱う拡張 Stream
+	 */
+	default <U> PairStream<Double, U> pair(DoubleFunction<U> mapper) {
+		return new PairStreamImpl<>(unwrap().mapToObj(v -> new Pair<>(v, mapper.apply(v))));
+	}
+
+	/**
+	 * 例外をサポートする拡張 Stream を作成します。
+	 *
+	 * <p>
+	 * 関数の結果がnullの場合は、NullPointerExceptionが発生した扱いになります。
+	 * </p>
+	 *
+	 * @param processor 各要素を処理する関数
+	 * @return 例外をサポートする拡張 Stream
+	 */
+	default <R> ResultStream<R> process(Processor<? extends R> processor) {
+		// 要素ごとにラムダ式を生成しないよう、Result.of を経由せずに処理する
+		return new ResultStreamImpl<R>(unwrap().mapToObj(v -> {
+			try {
+				return Result.ok(processor.process(v));
+			} catch (Exception e) {
+				return Result.<R> ng(e);
+			}
+		}));
+	}
+
+	/**
+	 * インスタンスを生成します。
+	 *
+	 * @param values 値
+	 * @return インスタンス
+	 */
+	static DoubleStreamEx of(double... values) {
+		return of(DoubleStream.of(values));
+	}
+
+	/**
+	 * インスタンスを生成します。
+	 *
+	 * @param stream 通常の Stream
+	 * @return インスタンス
+	 */
+	static DoubleStreamEx of(DoubleStream stream) {
+		return () -> stream;
+	}
+
+	/**
+	 * インスタンスを生成します。
+	 *
+	 * @param iterator イテレーター
+	 * @return インスタンス
+	 */
+	static DoubleStreamEx of(PrimitiveIterator.OfDouble iterator) {
+		Spliterator.OfDouble spliterator = Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED);
+		return of(StreamSupport.doubleStream(spliterator, false));
+	}
+
+	/**
+	 * インスタンスを生成します。
+	 *
+	 * @param seed 最初の値
+	 * @param function 前の値から、次の値を作成する関数
+	 * @return インスタンス
+	 */
+	static DoubleStreamEx iterate(double seed, DoubleUnaryOperator function) {
+		return of(DoubleStream.iterate(seed, function));
+	}
+}
@@ -0,0 +1,169 @@
+package satomaru.utility.stream;
+
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
+
+import satomaru.utility.tools.Result;
+
+/**
+ * 例外が発生したリザルトが一定数を超えた時点で、要素の取得を打ち切る Spliterator です。
+ *
+ * <p>
+ * 分割した Spliterator は状態を共有するので、並列 Stream の場合も、
+ * どれか1つが打ち切った時点で、他の Spliterator も次の要素を取得しなくなります。
+ * </p>
+ *
+ * @param <T> 処理結果の型
+ */
+final class FailFastSpliterator<T> implements Spliterator<Result<T>> {
+
+	/**
+	 * 分割した Spliterator で共有する状態です。
+	 */
+	private static final class State {
+
+		/** 許容する例外の数。 */
+		final int errorBudget;
+
+		/** 打ち切った時に呼び出す関数。 */
+		final ObjLongConsumer<Exception> onStop;
+
+		/** 打ち切った場合はtrue。 */
+		final AtomicBoolean stopped = new AtomicBoolean();
+
+		/** 例外が発生したリザルトの数。 */
+		final AtomicInteger errors = new AtomicInteger();
+
+		/** 取得したリザルトの数。 */
+		final LongAdder processed = new LongAdder();
+
+		/** 最初に発生した例外。 */
+		final AtomicReference<Exception> first = new AtomicReference<>();
+
+		/**
+		 * コンストラクタ。
+		 *
+		 * @param errorBudget 許容する例外の数
+		 * @param onStop 打ち切った時に呼び出す関数
+		 */
+		State(int errorBudget, ObjLongConsumer<Exception> onStop) {
+			this.errorBudget = errorBudget;
+			this.onStop = onStop;
+		}
+
+		/**
+		 * 取得したリザルトを記録します。
+		 *
+		 * @param result 取得したリザルト
+		 */
+		void record(Result<?> result) {
+			processed.increment();
+
+			if (result.isOk()) {
+				return;
+			}
+
+			Exception exception = result.exception().get();
+			first.compareAndSet(null, exception);
+
+			if (errors.incrementAndGet() > errorBudget && stopped.compareAndSet(false, true)) {
+				onStop.accept(first.get(), processed.sum());
+			}
+		}
+	}
+
+	/** 元となる Spliterator。 */
+	private final Spliterator<Result<T>> source;
+
+	/** 共有する状態。 */
+	private final State state;
+
+	/**
+	 * コンストラクタ。
+	 *
+	 * @param source 元となる Spliterator
+	 * @param errorBudget 許容する例外の数
+	 * @param onStop 打ち切った時に、最初に発生した例外と、それまでに取得したリザルトの数を受け取る関数
+	 */
+	FailFastSpliterator(Spliterator<Result<T>> source, int errorBudget, ObjLongConsumer<Exception> onStop) {
+		this(source, new State(errorBudget, onStop));
+	}
+
+	/**
+	 * コンストラクタ。
+	 *
+	 * @param source 元となる Spliterator
+	 * @param state 共有する状態
+	 */
+	private FailFastSpliterator(Spliterator<Result<T>> source, State state) {
+		this.source = source;
+		this.state = state;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>
+	 * 打ち切る原因となったリザルトまでは、後続に渡します。
+	 * </p>
+	 */
+	@Override
+	public boolean tryAdvance(Consumer<? super Result<T>> action) {
+		if (state.stopped.get()) {
+			return false;
+		}
+
+		return source.tryAdvance(r -> {
+			state.record(r);
+			action.accept(r);
+		});
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void forEachRemaining(Consumer<? super Result<T>> action) {
+		// 1要素ごとに打ち切りを確認する為、元の forEachRemaining は使わない
+		while (tryAdvance(action)) {
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Spliterator<Result<T>> trySplit() {
+		if (state.stopped.get()) {
+			return null;
+		}
+
+		Spliterator<Result<T>> prefix = source.trySplit();
+		return (prefix != null) ? new FailFastSpliterator<>(prefix, state) : null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long estimateSize() {
+		return state.stopped.get() ? 0 : source.estimateSize();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>
+	 * 途中で打ち切る可能性があるので、SIZED と SUBSIZED は除きます。
+	 * </p>
+	 */
+	@Override
+	public int characteristics() {
+		return source.characteristics() & ~(SIZED | SUBSIZED);
+	}
+}
@@ -0,0 +1,244 @@
+package satomaru.utility.stream;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.StreamSupport;
+
+/**
+ * ファイルをメモリーマップして、区切り文字で区切ったレコードの拡張 Stream を作成します。
+ *
+ * <p>
+ * {@code BufferedReader.lines()} と異なり、並列 Stream にした場合は、各スレッドがファイルの異なるバイトの範囲を担当します。
+ * 範囲はレコードの境界で区切るので、レコードが分断されることはありません。
+ * </p>
+ *
+ * <p>
+ * ファイルは、約 1GB ずつのセグメントに分けてメモリーマップします。
+ * セグメントは、1GB の位置から次の区切り文字の直後まで延ばして、レコードの境界で区切ります。
+ * 1回にマップできるのは 2GB 未満なので、1GB 未満のレコードは常に扱えますが、
+ * それより長いレコードは、1GB の位置に掛かるとセグメントが 2GB を超え、IOException になります。
+ * 作成した Stream を処理している間に、ファイルを変更してはいけません。
+ * </p>
+ */
+public final class MappedRecords {
+
+	/** セグメントの大きさ（この位置から、次のレコードの境界まで延ばします）。 */
+	static final long SEGMENT_SIZE = 1L << 30;
+
+	/** 区切り文字を探す時に、一度に読む大きさ。 */
+	private static final int SCAN_SIZE = 64 * 1024;
+
+	private MappedRecords() {
+	}
+
+	/**
+	 * レコードを、ファイルの内容をコピーしない ByteBuffer（読み取り専用）として扱う拡張 Stream を作成します。
+	 *
+	 * <p>
+	 * いくつかの項目だけを解析する場合など、文字列に変換するコストを避けたい場合に用います。
+	 * レコードには区切り文字を含みません。
+	 * </p>
+	 *
+	 * @param path ファイル
+	 * @param delimiter 区切り文字
+	 * @return レコードの拡張 Stream
+	 * @throws IOException ファイルをメモリーマップできない場合
+	 */
+	public static StreamEx<ByteBuffer> buffers(Path path, byte delimiter) throws IOException {
+		return StreamEx.of(StreamSupport.stream(spliterator(path, delimiter, false, SEGMENT_SIZE), false));
+	}
+
+	/**
+	 * レコードを、ファイルの内容をコピーしない CharSequence として扱う拡張 Stream を作成します。
+	 *
+	 * <p>
+	 * 1バイトを1文字（ISO-8859-1）として扱います。ASCII のみのファイルであれば、そのまま文字列として扱えます。
+	 * {@link CharSequence#toString()} を呼び出した時だけ、String を作成します。
+	 * </p>
+	 *
+	 * @param path ファイル
+	 * @param delimiter 区切り文字
+	 * @return レコードの拡張 Stream
+	 * @throws IOException ファイルをメモリーマップできない場合
+	 */
+	public static StreamEx<CharSequence> chars(Path path, byte delimiter) throws IOException {
+		return StreamEx.of(StreamSupport.stream(spliterator(path, delimiter, false, SEGMENT_SIZE), false)
+				.map(ByteCharSequence::new));
+	}
+
+	/**
+	 * レコードを、文字列として扱う拡張 Stream を作成します。
+	 *
+	 * @param path ファイル
+	 * @param delimiter 区切り文字
+	 * @param charset 文字セット
+	 * @return レコードの拡張 Stream
+	 * @throws IOException ファイルをメモリーマップできない場合
+	 */
+	public static StreamEx<String> strings(Path path, byte delimiter, Charset charset) throws IOException {
+		return StreamEx.of(StreamSupport.stream(spliterator(path, delimiter, false, SEGMENT_SIZE), false)
+				.map(b -> decode(b, charset)));
+	}
+
+	/**
+	 * 行を、文字列として扱う拡張 Stream を作成します。
+	 *
+	 * <p>
+	 * 改行文字（LF または CRLF）で区切り、UTF-8 として文字列にします。
+	 * </p>
+	 *
+	 * @param path ファイル
+	 * @return 行の拡張 Stream
+	 * @throws IOException ファイルをメモリーマップできない場合
+	 */
+	public static StreamEx<String> lines(Path path) throws IOException {
+		return StreamEx.of(StreamSupport.stream(spliterator(path, (byte) '\n', true, SEGMENT_SIZE), false)
+				.map(b -> decode(b, StandardCharsets.UTF_8)));
+	}
+
+	/**
+	 * ファイルをメモリーマップして、レコードの Spliterator を作成します。
+	 *
+	 * @param path ファイル
+	 * @param delimiter 区切り文字
+	 * @param trimCr レコードの末尾の復帰文字を取り除く場合はtrue
+	 * @param segmentSize セグメントの大きさ（この位置から、次のレコードの境界まで延ばします）
+	 * @return レコードの Spliterator
+	 * @throws IOException ファイルをメモリーマップできない場合、または延ばしたセグメントが 2GB を超える場合
+	 */
+	static RecordSpliterator spliterator(Path path, byte delimiter, boolean trimCr, long segmentSize) throws IOException {
+		List<ByteBuffer> segments = new ArrayList<>();
+
+		// マップした領域はチャネルを閉じても有効
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			long start = 0;
+
+			while (start < size) {
+				long end = (size - start <= segmentSize) ? size : boundary(channel, start + segmentSize, size, delimiter);
+
+				if (end - start > Integer.MAX_VALUE) {
+					throw new IOException("record too long near offset " + start);
+				}
+
+				segments.add(channel.map(MapMode.READ_ONLY, start, end - start));
+				start = end;
+			}
+		}
+
+		return new RecordSpliterator(segments, delimiter, trimCr);
+	}
+
+	/**
+	 * 指定された位置以降で、最初のレコードの境界（区切り文字の直後）を探します。
+	 *
+	 * @param channel ファイルのチャネル
+	 * @param from 開始位置
+	 * @param size ファイルの大きさ
+	 * @param delimiter 区切り文字
+	 * @return レコードの境界、見つからない場合はファイルの大きさ
+	 * @throws IOException ファイルを読めない場合
+	 */
+	private static long boundary(FileChannel channel, long from, long size, byte delimiter) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(SCAN_SIZE);
+
+		for (long offset = from; offset < size; offset += buffer.limit()) {
+			((Buffer) buffer).clear();
+			int read = channel.read(buffer, offset);
+
+			if (read <= 0) {
+				break;
+			}
+
+			((Buffer) buffer).flip();
+
+			for (int i = 0; i < read; i++) {
+				if (buffer.get(i) == delimiter) {
+					return offset + i + 1;
+				}
+			}
+		}
+
+		return size;
+	}
+
+	/**
+	 * レコードを文字列にします。
+	 *
+	 * @param buffer レコード
+	 * @param charset 文字セット
+	 * @return 文字列
+	 */
+	private static String decode(ByteBuffer buffer, Charset charset) {
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.duplicate().get(bytes);
+		return new String(bytes, charset);
+	}
+
+	/**
+	 * ByteBuffer を、1バイトを1文字として扱う CharSequence です。
+	 */
+	static final class ByteCharSequence implements CharSequence {
+
+		/** 元となる ByteBuffer。 */
+		private final ByteBuffer buffer;
+
+		/**
+		 * コンストラクタ。
+		 *
+		 * @param buffer 元となる ByteBuffer（位置は0であること）
+		 */
+		ByteCharSequence(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public int length() {
+			return buffer.limit();
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public char charAt(int index) {
+			return (char) (buffer.get(index) & 0xff);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			if (start < 0 || start > end || end > length()) {
+				throw new IndexOutOfBoundsException(String.format("start: %d, end: %d", start, end));
+			}
+
+			ByteBuffer duplicate = buffer.duplicate();
+			Buffer view = duplicate;
+			view.limit(end);
+			view.position(start);
+			return new ByteCharSequence(duplicate.slice());
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public String toString() {
+			return decode(buffer, StandardCharsets.ISO_8859_1);
+		}
+	}
+}
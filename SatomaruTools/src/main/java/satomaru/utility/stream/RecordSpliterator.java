@@ -0,0 +1,227 @@
+package satomaru.utility.stream;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * メモリーマップしたファイルを、区切り文字で区切ったレコードに分ける Spliterator です。
+ *
+ * <p>
+ * レコードは、ファイルの内容をコピーしない ByteBuffer（読み取り専用）として渡します。区切り文字は含みません。
+ * 分割する時は、担当するバイトの範囲を半分にし、その位置から次の区切り文字の直後で区切るので、
+ * レコードが分断されることはありません。
+ * </p>
+ */
+final class RecordSpliterator implements Spliterator<ByteBuffer> {
+
+	/** 復帰文字。 */
+	private static final byte CR = '\r';
+
+	/** メモリーマップしたセグメント（各セグメントは、レコードの境界で終わります）。 */
+	private final List<ByteBuffer> segments;
+
+	/** 区切り文字。 */
+	private final byte delimiter;
+
+	/** レコードの末尾の復帰文字を取り除く場合はtrue。 */
+	private final boolean trimCr;
+
+	/** 現在のセグメントの位置。 */
+	private int segment;
+
+	/** 終了セグメントの位置（この位置を含む）。 */
+	private final int lastSegment;
+
+	/** 現在のセグメント内の、次のレコードの開始位置。 */
+	private int position;
+
+	/** 終了セグメント内の、終了位置（この位置を含まない）。 */
+	private int limit;
+
+	/**
+	 * コンストラクタ。
+	 *
+	 * @param segments メモリーマップしたセグメント
+	 * @param delimiter 区切り文字
+	 * @param trimCr レコードの末尾の復帰文字を取り除く場合はtrue
+	 */
+	RecordSpliterator(List<ByteBuffer> segments, byte delimiter, boolean trimCr) {
+		this(segments, delimiter, trimCr, 0, 0, segments.size() - 1,
+				segments.isEmpty() ? 0 : segments.get(segments.size() - 1).capacity());
+	}
+
+	/**
+	 * コンストラクタ。
+	 *
+	 * @param segments メモリーマップしたセグメント
+	 * @param delimiter 区切り文字
+	 * @param trimCr レコードの末尾の復帰文字を取り除く場合はtrue
+	 * @param segment 開始セグメントの位置
+	 * @param position 開始セグメント内の開始位置
+	 * @param lastSegment 終了セグメントの位置
+	 * @param limit 終了セグメント内の終了位置
+	 */
+	private RecordSpliterator(
+			List<ByteBuffer> segments,
+			byte delimiter,
+			boolean trimCr,
+			int segment,
+			int position,
+			int lastSegment,
+			int limit) {
+
+		this.segments = segments;
+		this.delimiter = delimiter;
+		this.trimCr = trimCr;
+		this.segment = segment;
+		this.position = position;
+		this.lastSegment = lastSegment;
+		this.limit = limit;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean tryAdvance(Consumer<? super ByteBuffer> action) {
+		while (segment <= lastSegment) {
+			ByteBuffer buffer = segments.get(segment);
+			int end = (segment == lastSegment) ? limit : buffer.capacity();
+
+			if (position < end) {
+				int found = indexOf(buffer, position, end);
+				int recordEnd = (found < 0) ? end : found;
+				ByteBuffer record = slice(buffer, position, recordEnd);
+				position = (found < 0) ? end : found + 1;
+				action.accept(record);
+				return true;
+			}
+
+			segment++;
+			position = 0;
+		}
+
+		return false;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void forEachRemaining(Consumer<? super ByteBuffer> action) {
+		while (tryAdvance(action)) {
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>
+	 * 複数のセグメントを担当している場合はセグメント単位で、そうでない場合はバイトの範囲を半分にして分割します。
+	 * </p>
+	 */
+	@Override
+	public Spliterator<ByteBuffer> trySplit() {
+		if (segment < lastSegment) {
+			int mid = (segment + lastSegment) >>> 1;
+			RecordSpliterator prefix = new RecordSpliterator(
+					segments, delimiter, trimCr, segment, position, mid, segments.get(mid).capacity());
+
+			segment = mid + 1;
+			position = 0;
+			return prefix;
+		}
+
+		if (segment > lastSegment) {
+			return null;
+		}
+
+		ByteBuffer buffer = segments.get(segment);
+		int mid = (position + limit) >>> 1;
+
+		if (limit - position < 2) {
+			return null;
+		}
+
+		int found = indexOf(buffer, mid, limit);
+
+		if (found < 0 || found + 1 >= limit) {
+			return null;
+		}
+
+		RecordSpliterator prefix = new RecordSpliterator(
+				segments, delimiter, trimCr, segment, position, segment, found + 1);
+
+		position = found + 1;
+		return prefix;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>
+	 * 残りのバイト数を返却します（レコード数ではありません）。
+	 * </p>
+	 */
+	@Override
+	public long estimateSize() {
+		long size = 0;
+
+		for (int i = segment; i <= lastSegment; i++) {
+			size += (i == lastSegment) ? limit : segments.get(i).capacity();
+		}
+
+		return size - position;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int characteristics() {
+		return ORDERED | NONNULL | IMMUTABLE;
+	}
+
+	/**
+	 * 区切り文字を探します。
+	 *
+	 * @param buffer バッファー
+	 * @param from 開始位置（この位置を含む）
+	 * @param to 終了位置（この位置を含まない）
+	 * @return 区切り文字の位置、見つからない場合は-1
+	 */
+	private int indexOf(ByteBuffer buffer, int from, int to) {
+		for (int i = from; i < to; i++) {
+			if (buffer.get(i) == delimiter) {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * レコードの範囲を、コピーせずに切り出します。
+	 *
+	 * @param buffer バッファー
+	 * @param from 開始位置（この位置を含む）
+	 * @param to 終了位置（この位置を含まない）
+	 * @return 読み取り専用の ByteBuffer
+	 */
+	private ByteBuffer slice(ByteBuffer buffer, int from, int to) {
+		if (trimCr && to > from && buffer.get(to - 1) == CR) {
+			to--;
+		}
+
+		ByteBuffer duplicate = buffer.duplicate();
+
+		// Java 8 でも動作するよう、Buffer として呼び出す
+		Buffer view = duplicate;
+		view.limit(to);
+		view.position(from);
+		return duplicate.slice();
+	}
+}
@@ -0,0 +1,99 @@
+package satomaru.utility.stream;
+
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.stream.Collector;
+import java.util.stream.Collector.Characteristics;
+
+import satomaru.utility.tools.Pair;
+import satomaru.utility.tools.Result;
+
+/**
+ * リザルトを集計する Collector です。
+ */
+final class ResultCollectors {
+
+	/**
+	 * 処理結果と例外の、集計途中の値を保持します。
+	 *
+	 * @param <A> 処理結果の集計途中の型
+	 * @param <B> 例外の集計途中の型
+	 */
+	private static final class Box<A, B> {
+
+		/** 処理結果の集計途中の値。 */
+		A ok;
+
+		/** 例外の集計途中の値。 */
+		B ng;
+
+		/**
+		 * コンストラクタ。
+		 *
+		 * @param ok 処理結果の集計途中の値
+		 * @param ng 例外の集計途中の値
+		 */
+		Box(A ok, B ng) {
+			this.ok = ok;
+			this.ng = ng;
+		}
+	}
+
+	private ResultCollectors() {
+	}
+
+	/**
+	 * 処理結果と例外を、1回の走査でそれぞれ集計する Collector を作成します。
+	 *
+	 * <p>
+	 * 両方の Collector が UNORDERED の場合のみ、UNORDERED になります。
+	 * CONCURRENT にはなりません。
+	 * </p>
+	 *
+	 * @param ok 処理結果を集計する Collector
+	 * @param ng 例外を集計する Collector
+	 * @return 処理結果と例外の集計結果のペアを返却する Collector
+	 */
+	static <T, A1, A2, R1, R2> Collector<Result<T>, ?, Pair<R1, R2>> partitioning(
+			Collector<? super T, A1, R1> ok,
+			Collector<? super Exception, A2, R2> ng) {
+
+		BiConsumer<A1, ? super T> okAccumulator = ok.accumulator();
+		BiConsumer<A2, ? super Exception> ngAccumulator = ng.accumulator();
+
+		return Collector.<Result<T>, Box<A1, A2>, Pair<R1, R2>> of(
+				() -> new Box<>(ok.supplier().get(), ng.supplier().get()),
+				(box, r) -> {
+					if (r.isOk()) {
+						okAccumulator.accept(box.ok, r.value().get());
+					} else {
+						ngAccumulator.accept(box.ng, r.exception().get());
+					}
+				},
+				(left, right) -> {
+					left.ok = ok.combiner().apply(left.ok, right.ok);
+					left.ng = ng.combiner().apply(left.ng, right.ng);
+					return left;
+				},
+				box -> new Pair<>(ok.finisher().apply(box.ok), ng.finisher().apply(box.ng)),
+				characteristics(ok, ng));
+	}
+
+	/**
+	 * 2つの Collector に共通する特性を取得します。
+	 *
+	 * @param ok 処理結果を集計する Collector
+	 * @param ng 例外を集計する Collector
+	 * @return 共通する特性（UNORDERED のみ）
+	 */
+	private static Characteristics[] characteristics(Collector<?, ?, ?> ok, Collector<?, ?, ?> ng) {
+		Set<Characteristics> okSet = ok.characteristics();
+		Set<Characteristics> ngSet = ng.characteristics();
+
+		if (okSet.contains(Characteristics.UNORDERED) && ngSet.contains(Characteristics.UNORDERED)) {
+			return new Characteristics[] { Characteristics.UNORDERED };
+		}
+
+		return new Characteristics[0];
+	}
+}
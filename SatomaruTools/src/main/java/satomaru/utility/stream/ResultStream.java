@@ -1,10 +1,17 @@
 package satomaru.utility.stream;
 
+import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.ObjLongConsumer;
+import java.util.stream.Collector;
 
+import satomaru.utility.tools.Metrics;
+import satomaru.utility.tools.Pair;
 import satomaru.utility.tools.Result;
 import satomaru.utility.tools.Result.Processor;
+import satomaru.utility.tools.Retry;
 
 /**
  * 例外をサポートする拡張 Stream です。
@@ -40,6 +47,116 @@ public interface ResultStream<T> {
 	 */
 	<R> ResultStream<R> process(Processor<? super T, ? extends R> processor);
 
+	/**
+	 * 例外が発生しなかった場合、再試行しながら処理結果をさらに処理します。
+	 * 
+	 * <p>
+	 * 再試行までの間は、Stream を処理しているスレッドが待機します。
+	 * 処理結果がnullの場合は、NullPointerExceptionが発生した扱いになります。
+	 * </p>
+	 * 
+	 * @param processor 処理結果をさらに処理する関数
+	 * @param retry 再試行の方針
+	 * @return 処理した後の新しい拡張 Stream
+	 */
+	<R> ResultStream<R> process(Processor<? super T, ? extends R> processor, Retry retry);
+
+	/**
+	 * 例外が発生しなかった場合、件数・例外・処理時間をステージに記録しながら、処理結果をさらに処理します。
+	 * 
+	 * <p>
+	 * 前段で例外が発生していたリザルトは、処理しなかった件数として記録します。
+	 * 記録を行わないステージの場合は、{@link #process(Processor)} と同じです。
+	 * 処理結果がnullの場合は、NullPointerExceptionが発生した扱いになります。
+	 * </p>
+	 * 
+	 * @param processor 処理結果をさらに処理する関数
+	 * @param stage 記録するステージ
+	 * @return 処理した後の新しい拡張 Stream
+	 */
+	<R> ResultStream<R> process(Processor<? super T, ? extends R> processor, Metrics.Stage stage);
+
+	/**
+	 * 例外が発生しなかった場合、処理結果を Executor 上でさらに処理します。
+	 * 
+	 * <p>
+	 * 同時に処理する数は、最大 maxInFlight 個です。上限に達している間は上流から要素を取得しないので、
+	 * 上流が無限であっても、保持する要素の数は上限を超えません。
+	 * I/O を伴う処理を、共通の ForkJoinPool を使わずに並行して行う場合に用います。
+	 * </p>
+	 * 
+	 * <p>
+	 * 出現順を維持する場合は、先頭の要素の処理が完了するまで後続に渡しません（後続の要素の処理は進みます）。
+	 * 維持しない場合は、処理が完了した順に後続に渡します。
+	 * </p>
+	 * 
+	 * <p>
+	 * 並行化は Executor で行うので、返却する Stream は順次 Stream になります。
+	 * findFirst などで途中で終了する場合は、Stream を close すると、まだ開始していない処理を取り消します。
+	 * Executor が受け付けない要素は、その例外が発生した扱いになります。
+	 * 処理結果がnullの場合は、NullPointerExceptionが発生した扱いになります。
+	 * </p>
+	 * 
+	 * @param processor 処理結果をさらに処理する関数
+	 * @param executor 処理を行う Executor
+	 * @param maxInFlight 同時に処理する数の上限
+	 * @param ordered 出現順を維持する場合はtrue
+	 * @return 処理した後の新しい拡張 Stream
+	 * @throws IllegalArgumentException 同時に処理する数の上限が1未満の場合
+	 */
+	<R> ResultStream<R> process(
+			Processor<? super T, ? extends R> processor,
+			Executor executor,
+			int maxInFlight,
+			boolean ordered);
+
+	/**
+	 * 例外が発生した時点で、要素の取得を打ち切ります。
+	 * 
+	 * <p>
+	 * {@code failFast(0, (e, n) -> {})} と同じです。
+	 * </p>
+	 * 
+	 * @return 打ち切りをサポートする拡張 Stream
+	 * @see #failFast(int, ObjLongConsumer)
+	 */
+	ResultStream<T> failFast();
+
+	/**
+	 * 例外が発生したリザルトが、許容する数を超えた時点で、要素の取得を打ち切ります。
+	 * 
+	 * <p>
+	 * {@code failFast(errorBudget, (e, n) -> {})} と同じです。
+	 * </p>
+	 * 
+	 * @param errorBudget 許容する例外の数
+	 * @return 打ち切りをサポートする拡張 Stream
+	 * @see #failFast(int, ObjLongConsumer)
+	 */
+	ResultStream<T> failFast(int errorBudget);
+
+	/**
+	 * 例外が発生したリザルトが、許容する数を超えた時点で、要素の取得を打ち切ります。
+	 * 
+	 * <p>
+	 * 打ち切る原因となったリザルトまでは後続に渡し、それ以降は上流から要素を取得しません。
+	 * 上流の処理は要素を取得した時に行われるので、残りの要素は処理されません。
+	 * 並列 Stream の場合は、他のスレッドも次の要素を取得しなくなります（既に処理中の要素は中断しません）。
+	 * </p>
+	 * 
+	 * <p>
+	 * 打ち切った時は、最初に発生した例外と、それまでに取得したリザルトの数（打ち切る原因となったリザルトを含む）を通知します。
+	 * 並列 Stream の場合、最初に発生した例外とは、出現順ではなく最初に検出された例外です。
+	 * 打ち切らずに終端まで処理した場合は、通知しません。
+	 * </p>
+	 * 
+	 * @param errorBudget 許容する例外の数（0の場合は、最初の例外で打ち切ります）
+	 * @param onStop 打ち切った時に、最初に発生した例外と、取得したリザルトの数を受け取る関数
+	 * @return 打ち切りをサポートする拡張 Stream
+	 * @throws IllegalArgumentException 許容する例外の数が負の場合
+	 */
+	ResultStream<T> failFast(int errorBudget, ObjLongConsumer<Exception> onStop);
+
 	/**
 	 * 例外が発生しなかった場合、処理結果を評価します。
 	 * 
@@ -64,4 +181,33 @@ public interface ResultStream<T> {
 	 * @return 拡張 Stream
 	 */
 	<E extends Exception> ResultStream<T> when(Class<E> type, Consumer<? super E> consumer);
+
+	/**
+	 * 処理結果と例外を、1回の走査でそれぞれのリストに集めます。
+	 * 
+	 * <p>
+	 * これは終端操作です。
+	 * </p>
+	 * 
+	 * @return 処理結果のリストと、例外のリストのペア
+	 */
+	Pair<List<T>, List<Exception>> partition();
+
+	/**
+	 * 処理結果と例外を、1回の走査でそれぞれ集計します。
+	 * 
+	 * <p>
+	 * これは終端操作です。
+	 * 中間のリストを作らずに、処理結果と例外をそれぞれの Collector に直接渡します。
+	 * 並列 Stream の場合は、各 Collector の combiner で結合します。
+	 * 例えば例外の種類ごとに数えるには、
+	 * {@code partition(Collectors.toList(), Collectors.groupingBy(Exception::getClass, Collectors.counting()))}
+	 * とします。
+	 * </p>
+	 * 
+	 * @param ok 処理結果を集計する Collector
+	 * @param ng 例外を集計する Collector
+	 * @return 処理結果の集計結果と、例外の集計結果のペア
+	 */
+	<A, B> Pair<A, B> partition(Collector<? super T, ?, A> ok, Collector<? super Exception, ?, B> ng);
 }
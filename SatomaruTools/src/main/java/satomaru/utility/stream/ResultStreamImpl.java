@@ -1,11 +1,20 @@
 package satomaru.utility.stream;
 
+import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.ObjLongConsumer;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import satomaru.utility.tools.Metrics;
+import satomaru.utility.tools.Pair;
 import satomaru.utility.tools.Result;
 import satomaru.utility.tools.Result.Processor;
+import satomaru.utility.tools.Retry;
 
 /**
  * 例外をサポートする拡張 Stream の実装です。
@@ -50,6 +59,78 @@ public final class ResultStreamImpl<T> implements ResultStream<T> {
 		return new ResultStreamImpl<>(stream.map(r -> r.process(processor)));
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public <R> ResultStream<R> process(Processor<? super T, ? extends R> processor, Retry retry) {
+		return new ResultStreamImpl<>(stream.map(r -> r.process(processor, retry)));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public <R> ResultStream<R> process(Processor<? super T, ? extends R> processor, Metrics.Stage stage) {
+		if (!stage.isEnabled()) {
+			return process(processor);
+		}
+
+		return new ResultStreamImpl<>(stream.map(r -> stage.process(r, processor)));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public <R> ResultStream<R> process(
+			Processor<? super T, ? extends R> processor,
+			Executor executor,
+			int maxInFlight,
+			boolean ordered) {
+
+		if (maxInFlight < 1) {
+			throw new IllegalArgumentException("maxInFlight: " + maxInFlight);
+		}
+
+		AsyncProcessSpliterator<T, R> spliterator =
+				new AsyncProcessSpliterator<>(stream.spliterator(), processor, executor, maxInFlight, ordered);
+
+		return new ResultStreamImpl<>(StreamSupport.stream(spliterator, false)
+				.onClose(spliterator::cancel)
+				.onClose(stream::close));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public ResultStream<T> failFast() {
+		return failFast(0);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public ResultStream<T> failFast(int errorBudget) {
+		return failFast(errorBudget, (e, n) -> {
+		});
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public ResultStream<T> failFast(int errorBudget, ObjLongConsumer<Exception> onStop) {
+		if (errorBudget < 0) {
+			throw new IllegalArgumentException("errorBudget: " + errorBudget);
+		}
+
+		FailFastSpliterator<T> spliterator = new FailFastSpliterator<>(stream.spliterator(), errorBudget, onStop);
+		return new ResultStreamImpl<>(StreamSupport.stream(spliterator, stream.isParallel()).onClose(stream::close));
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -73,4 +154,20 @@ public final class ResultStreamImpl<T> implements ResultStream<T> {
 	public <E extends Exception> ResultStream<T> when(Class<E> type, Consumer<? super E> consumer) {
 		return new ResultStreamImpl<>(stream.peek(r -> r.when(type, consumer)));
 	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Pair<List<T>, List<Exception>> partition() {
+		return partition(Collectors.toList(), Collectors.toList());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public <A, B> Pair<A, B> partition(Collector<? super T, ?, A> ok, Collector<? super Exception, ?, B> ng) {
+		return stream.collect(ResultCollectors.partitioning(ok, ng));
+	}
 }
@@ -1,7 +1,10 @@
 package satomaru.utility.stream;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Spliterator;
 import java.util.Spliterators;
 import java.util.concurrent.atomic.AtomicReference;
@@ -11,8 +14,13 @@ import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import satomaru.utility.iterator.FunctionIterator;
+import satomaru.utility.iterator.IndexSpliterator;
+import satomaru.utility.iterator.IteratorSpliterator;
+import satomaru.utility.tools.Metrics;
 import satomaru.utility.tools.Pair;
+import satomaru.utility.tools.Reservoir;
 import satomaru.utility.tools.Result;
+import satomaru.utility.tools.Retry;
 
 /**
  * Java Stream API にこういう機能があったらいいなあ的な妄想を書きなぐりました。
@@ -59,7 +67,111 @@ public interface StreamEx<T> {
 	 * @return 例外をサポートする拡張 Stream
 	 */
 	default <R> ResultStream<R> process(Result.Processor<? super T, R> processor) {
-		return new ResultStreamImpl<R>(unwrap().map(t -> Result.of(() -> processor.process(t))));
+		return new ResultStreamImpl<R>(unwrap().map(t -> Result.of(t, processor)));
+	}
+
+	/**
+	 * 再試行しながら各要素を処理する、例外をサポートする拡張 Stream を作成します。
+	 * 
+	 * <p>
+	 * 再試行までの間は、Stream を処理しているスレッドが待機します。
+	 * 関数の結果がnullの場合は、NullPointerExceptionが発生した扱いになります。
+	 * </p>
+	 * 
+	 * @param processor 各要素を処理する関数
+	 * @param retry 再試行の方針
+	 * @return 例外をサポートする拡張 Stream
+	 */
+	default <R> ResultStream<R> process(Result.Processor<? super T, R> processor, Retry retry) {
+		return new ResultStreamImpl<R>(unwrap().map(t -> Result.of(() -> processor.process(t), retry)));
+	}
+
+	/**
+	 * 件数・例外・処理時間をステージに記録しながら、例外をサポートする拡張 Stream を作成します。
+	 * 
+	 * <p>
+	 * 記録を行わないステージの場合は、{@link #process(Result.Processor)} と同じです。
+	 * 関数の結果がnullの場合は、NullPointerExceptionが発生した扱いになります。
+	 * </p>
+	 * 
+	 * @param processor 各要素を処理する関数
+	 * @param stage 記録するステージ
+	 * @return 例外をサポートする拡張 Stream
+	 */
+	default <R> ResultStream<R> process(Result.Processor<? super T, R> processor, Metrics.Stage stage) {
+		if (!stage.isEnabled()) {
+			return process(processor);
+		}
+
+		return new ResultStreamImpl<R>(unwrap().map(t -> {
+			long start = System.nanoTime();
+			Result<R> result = Result.of(t, processor);
+			stage.record(System.nanoTime() - start, result);
+			return result;
+		}));
+	}
+
+	/**
+	 * 要素を、決まった数ずつのリストにまとめます。
+	 * 
+	 * <p>
+	 * 最後のリストは、要素の数が足りない場合があります。
+	 * 要素は1つのリスト分しか保持しないので、巨大な Stream でもメモリーを使い切りません。
+	 * 並列 Stream の場合も、先頭から数えた位置でまとめます。
+	 * </p>
+	 * 
+	 * @param size 1つのリストにまとめる要素の数
+	 * @return リストの拡張 Stream
+	 * @throws IllegalArgumentException 要素の数が1未満の場合
+	 */
+	default StreamEx<List<T>> chunked(int size) {
+		if (size < 1) {
+			throw new IllegalArgumentException("size: " + size);
+		}
+
+		Stream<T> stream = unwrap();
+		WindowSpliterator<T> spliterator = new WindowSpliterator<>(stream.spliterator(), size, size, true);
+		return of(StreamSupport.stream(spliterator, stream.isParallel()).onClose(stream::close));
+	}
+
+	/**
+	 * 連続する要素をまとめたリスト（ウィンドウ）を、ずらしながら作成します。
+	 * 
+	 * <p>
+	 * 先頭から step 個ごとの位置から、size 個の要素をまとめます。
+	 * 要素の数が足りないウィンドウは作成しません。
+	 * 要素は1つのウィンドウ分しか保持しないので、巨大な Stream でもメモリーを使い切りません。
+	 * 並列 Stream の場合も、先頭から数えた位置でまとめます。
+	 * </p>
+	 * 
+	 * @param size 1つのウィンドウにまとめる要素の数
+	 * @param step ウィンドウをずらす要素の数
+	 * @return ウィンドウの拡張 Stream
+	 * @throws IllegalArgumentException 要素の数が1未満の場合
+	 */
+	default StreamEx<List<T>> sliding(int size, int step) {
+		if (size < 1 || step < 1) {
+			throw new IllegalArgumentException(String.format("size: %d, step: %d", size, step));
+		}
+
+		Stream<T> stream = unwrap();
+		WindowSpliterator<T> spliterator = new WindowSpliterator<>(stream.spliterator(), size, step, false);
+		return of(StreamSupport.stream(spliterator, stream.isParallel()).onClose(stream::close));
+	}
+
+	/**
+	 * 決まった数の要素をランダムに選択します。
+	 * 
+	 * <p>
+	 * 要素はリザーバーにしか保持しないので、巨大な Stream からでも選択できます。
+	 * 並列 Stream の場合は、部分ごとのリザーバーを統合します。
+	 * </p>
+	 * 
+	 * @param size 選択する数
+	 * @return 選択された要素（順番は不定）
+	 */
+	default List<T> sample(int size) {
+		return Reservoir.sample(unwrap(), size);
 	}
 
 	/**
@@ -96,14 +208,48 @@ public interface StreamEx<T> {
 	/**
 	 * インスタンスを生成します。
 	 * 
+	 * <p>
+	 * 並列 Stream にした場合は、イテレーターから取得する時間に合わせて、分割するバッチの大きさを調整します。
+	 * バッチの大きさや先読みを指定する場合は、{@link IteratorSpliterator} を用いてください。
+	 * </p>
+	 * 
 	 * @param iterator イテレーター
 	 * @return インスタンス
 	 */
 	static <T> StreamEx<T> of(Iterator<T> iterator) {
-		Spliterator<T> spliterator = Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED);
+		return of(IteratorSpliterator.of(iterator).build());
+	}
+
+	/**
+	 * インスタンスを生成します。
+	 * 
+	 * <p>
+	 * Spliterator が分割に対応していれば（例えば {@link IndexSpliterator}）、並列 Stream でも効率よく処理できます。
+	 * </p>
+	 * 
+	 * @param spliterator Spliterator
+	 * @return インスタンス
+	 */
+	static <T> StreamEx<T> of(Spliterator<T> spliterator) {
 		return of(StreamSupport.stream(spliterator, false));
 	}
 
+	/**
+	 * ファイルの行を要素とするインスタンスを生成します。
+	 *
+	 * <p>
+	 * ファイルをメモリーマップするので、並列 Stream にした場合は、各スレッドがファイルの異なる範囲を読みます。
+	 * 文字列に変換しない場合や、区切り文字を指定する場合は、{@link MappedRecords} を用いてください。
+	 * </p>
+	 *
+	 * @param path ファイル（UTF-8）
+	 * @return インスタンス
+	 * @throws IOException ファイルをメモリーマップできない場合
+	 */
+	static StreamEx<String> lines(Path path) throws IOException {
+		return MappedRecords.lines(path);
+	}
+
 	/**
 	 * 2つのイテレーターから PairStream を作成します。
 	 * 
@@ -131,6 +277,89 @@ public interface StreamEx<T> {
 		);
 	}
 
+	/**
+	 * 2つのリストから、同じインデックスの要素をペアにした PairStream を作成します。
+	 * 
+	 * <p>
+	 * 要素数は短い方のリストに合わせます。要素がnullであっても、そこで終了せずにペアにします。
+	 * PairStream は要素数が分かっており（SIZED）、両方のリストを同じインデックスで分割するので、
+	 * 並列 Stream でも効率よく処理できます。
+	 * ランダムアクセスできないリストは、最初に配列へコピーします。
+	 * </p>
+	 * 
+	 * @param first 1つ目のリスト
+	 * @param second 2つ目のリスト
+	 * @return PairStream
+	 */
+	public static <F, S> PairStream<F, S> zip(List<F> first, List<S> second) {
+		List<F> f = ZipSpliterator.randomAccess(first);
+		List<S> s = ZipSpliterator.randomAccess(second);
+		return ZipSpliterator.stream(f::get, s::get, Math.min(f.size(), s.size()));
+	}
+
+	/**
+	 * 2つの配列から、同じインデックスの要素をペアにした PairStream を作成します。
+	 * 
+	 * <p>
+	 * 要素数は短い方の配列に合わせます。要素がnullであっても、そこで終了せずにペアにします。
+	 * </p>
+	 * 
+	 * @param first 1つ目の配列
+	 * @param second 2つ目の配列
+	 * @return PairStream
+	 * @see #zip(List, List)
+	 */
+	public static <F, S> PairStream<F, S> zip(F[] first, S[] second) {
+		return ZipSpliterator.stream(i -> first[i], i -> second[i], Math.min(first.length, second.length));
+	}
+
+	/**
+	 * 2つのリストから、同じインデックスの要素をペアにした PairStream を作成します。
+	 * 
+	 * <p>
+	 * 要素数は長い方のリストに合わせ、短い方のリストには、足りない要素の代わりに指定された値を用います。
+	 * </p>
+	 * 
+	 * @param first 1つ目のリスト
+	 * @param second 2つ目のリスト
+	 * @param firstPadding 1つ目のリストが短い場合に用いる値
+	 * @param secondPadding 2つ目のリストが短い場合に用いる値
+	 * @return PairStream
+	 * @see #zip(List, List)
+	 */
+	public static <F, S> PairStream<F, S> zipLongest(List<F> first, List<S> second, F firstPadding, S secondPadding) {
+		List<F> f = ZipSpliterator.randomAccess(first);
+		List<S> s = ZipSpliterator.randomAccess(second);
+		int firstSize = f.size();
+		int secondSize = s.size();
+
+		return ZipSpliterator.stream(
+				i -> (i < firstSize) ? f.get(i) : firstPadding,
+				i -> (i < secondSize) ? s.get(i) : secondPadding,
+				Math.max(firstSize, secondSize));
+	}
+
+	/**
+	 * 2つの配列から、同じインデックスの要素をペアにした PairStream を作成します。
+	 * 
+	 * <p>
+	 * 要素数は長い方の配列に合わせ、短い方の配列には、足りない要素の代わりに指定された値を用います。
+	 * </p>
+	 * 
+	 * @param first 1つ目の配列
+	 * @param second 2つ目の配列
+	 * @param firstPadding 1つ目の配列が短い場合に用いる値
+	 * @param secondPadding 2つ目の配列が短い場合に用いる値
+	 * @return PairStream
+	 * @see #zip(List, List)
+	 */
+	public static <F, S> PairStream<F, S> zipLongest(F[] first, S[] second, F firstPadding, S secondPadding) {
+		return ZipSpliterator.stream(
+				i -> (i < first.length) ? first[i] : firstPadding,
+				i -> (i < second.length) ? second[i] : secondPadding,
+				Math.max(first.length, second.length));
+	}
+
 	/**
 	 * インスタンスを生成します。
 	 * 
@@ -0,0 +1,310 @@
+package satomaru.utility.stream;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * 連続する要素をまとめたリスト（ウィンドウ）を要素とする Spliterator です。
+ *
+ * <p>
+ * ウィンドウは、先頭から step 個ごとの位置を開始位置とし、そこから size 個の要素をまとめたものです。
+ * 元の Spliterator が SUBSIZED の場合は、分割した位置が分かるので、ウィンドウの開始位置に合わせて分割します。
+ * 分割位置を跨ぐウィンドウに必要な要素は、分割時に後半から取得して、前半の末尾に渡します。
+ * 後半は、取得した要素を先頭に戻して保持するので、さらに分割できます（先頭の要素は、分割すると前半が引き継ぎます）。
+ * </p>
+ *
+ * <p>
+ * 要素は内部のバッファーに保持して使い回し、ウィンドウを渡す時だけリストにコピーします。
+ * 保持する要素は、最大で1つのウィンドウ分です。
+ * </p>
+ *
+ * @param <T> 要素の型
+ */
+final class WindowSpliterator<T> implements Spliterator<List<T>> {
+
+	/** nullの要素の代わりにバッファーに入れるオブジェクト。 */
+	private static final Object NULL = new Object();
+
+	/** 元となる Spliterator。 */
+	private final Spliterator<T> source;
+
+	/** ウィンドウの大きさ。 */
+	private final int size;
+
+	/** ウィンドウの開始位置の間隔。 */
+	private final int step;
+
+	/** 末尾の不完全なウィンドウも渡す場合はtrue。 */
+	private final boolean partial;
+
+	/** 元となる Spliterator より前に読む要素。 */
+	private ArrayDeque<Object> head;
+
+	/** 元となる Spliterator より後に読む要素。 */
+	private final ArrayDeque<Object> tail;
+
+	/** 次に読む要素の位置。 */
+	private long position;
+
+	/** この Spliterator が担当するウィンドウの、開始位置の上限（この位置を含まない）。 */
+	private final long end;
+
+	/** 次のウィンドウの開始位置。 */
+	private long next;
+
+	/** 読んだ要素のバッファー。 */
+	private final ArrayDeque<Object> window = new ArrayDeque<>();
+
+	/** バッファーの先頭の要素の位置。 */
+	private long windowStart;
+
+	/** 全てのウィンドウを渡した場合はtrue。 */
+	private boolean done;
+
+	/** 元となる Spliterator から読んだ要素。 */
+	private T holder;
+
+	/**
+	 * コンストラクタ。
+	 *
+	 * @param source 元となる Spliterator
+	 * @param size ウィンドウの大きさ
+	 * @param step ウィンドウの開始位置の間隔
+	 * @param partial 末尾の不完全なウィンドウも渡す場合はtrue
+	 */
+	WindowSpliterator(Spliterator<T> source, int size, int step, boolean partial) {
+		this(source, size, step, partial, new ArrayDeque<>(), new ArrayDeque<>(), 0, Long.MAX_VALUE, 0);
+	}
+
+	/**
+	 * コンストラクタ。
+	 *
+	 * @param source 元となる Spliterator
+	 * @param size ウィンドウの大きさ
+	 * @param step ウィンドウの開始位置の間隔
+	 * @param partial 末尾の不完全なウィンドウも渡す場合はtrue
+	 * @param head 元となる Spliterator より前に読む要素
+	 * @param tail 元となる Spliterator より後に読む要素
+	 * @param position 最初の要素の位置
+	 * @param end 担当するウィンドウの、開始位置の上限
+	 * @param next 最初のウィンドウの開始位置
+	 */
+	private WindowSpliterator(
+			Spliterator<T> source,
+			int size,
+			int step,
+			boolean partial,
+			ArrayDeque<Object> head,
+			ArrayDeque<Object> tail,
+			long position,
+			long end,
+			long next) {
+
+		this.source = source;
+		this.size = size;
+		this.step = step;
+		this.partial = partial;
+		this.head = head;
+		this.tail = tail;
+		this.position = position;
+		this.end = end;
+		this.next = next;
+		this.windowStart = position;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean tryAdvance(Consumer<? super List<T>> action) {
+		if (done || next >= end) {
+			return false;
+		}
+
+		boolean exhausted = false;
+
+		while (true) {
+			// 次のウィンドウより前の要素は捨てる
+			while (!window.isEmpty() && windowStart < next) {
+				window.pollFirst();
+				windowStart++;
+			}
+
+			if (window.isEmpty()) {
+				windowStart = position;
+			}
+
+			if (windowStart >= next && window.size() >= size) {
+				break;
+			}
+
+			if (!read()) {
+				exhausted = true;
+				break;
+			}
+		}
+
+		if (window.size() >= size || (exhausted && partial && !window.isEmpty() && windowStart == next)) {
+			done = exhausted;
+			next += step;
+			action.accept(copy());
+			return true;
+		}
+
+		done = true;
+		return false;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>
+	 * 元となる Spliterator が SUBSIZED であり、まだウィンドウを渡し始めていない場合のみ分割します。
+	 * 先頭に保持している要素（前回の分割で後半から取得した要素）は、前半が引き継ぎます。
+	 * </p>
+	 */
+	@Override
+	public Spliterator<List<T>> trySplit() {
+		if (done || !window.isEmpty() || !source.hasCharacteristics(SUBSIZED)) {
+			return null;
+		}
+
+		Spliterator<T> prefixSource = source.trySplit();
+
+		if (prefixSource == null) {
+			return null;
+		}
+
+		// 前半は、先頭に保持している要素と、分割した元となる Spliterator の前半を読む
+		long mid = position + head.size() + prefixSource.estimateSize();
+		long suffixNext = Math.max(next, (mid + step - 1) / step * step);
+		long prefixEnd = Math.min(suffixNext, end);
+
+		// 前半の最後のウィンドウが、後半から必要とする要素を取得する
+		long lastOfPrefix = suffixNext - step;
+		long borrow = (lastOfPrefix >= next && lastOfPrefix < prefixEnd) ? lastOfPrefix + size - mid : 0;
+		ArrayDeque<Object> borrowed = new ArrayDeque<>();
+
+		for (long i = 0; i < borrow; i++) {
+			Object value = takeAfterHead();
+
+			if (value == null) {
+				break;
+			}
+
+			borrowed.addLast(value);
+		}
+
+		WindowSpliterator<T> prefix = new WindowSpliterator<>(
+				prefixSource,
+				size,
+				step,
+				partial,
+				head,
+				new ArrayDeque<>(borrowed),
+				position,
+				prefixEnd,
+				next);
+
+		head = borrowed;
+		position = mid;
+		windowStart = mid;
+		next = suffixNext;
+		return prefix;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long estimateSize() {
+		long remaining = source.estimateSize();
+
+		if (remaining == Long.MAX_VALUE) {
+			return remaining;
+		}
+
+		return (remaining + head.size() + tail.size() + window.size()) / step + 1;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int characteristics() {
+		return ORDERED | NONNULL;
+	}
+
+	/**
+	 * 次の要素を読んで、バッファーに追加します。
+	 *
+	 * @return 要素があった場合はtrue
+	 */
+	private boolean read() {
+		Object value = take();
+
+		if (value == null) {
+			return false;
+		}
+
+		window.addLast(value);
+		position++;
+		return true;
+	}
+
+	/**
+	 * 次の要素を取得します。
+	 *
+	 * @return 次の要素（nullの要素は {@link #NULL}）、要素がない場合はnull
+	 */
+	private Object take() {
+		if (!head.isEmpty()) {
+			return head.pollFirst();
+		}
+
+		return takeAfterHead();
+	}
+
+	/**
+	 * 先頭に保持している要素を除いて、次の要素を取得します。
+	 *
+	 * @return 次の要素（nullの要素は {@link #NULL}）、要素がない場合はnull
+	 */
+	private Object takeAfterHead() {
+		if (source.tryAdvance(this::hold)) {
+			T value = holder;
+			holder = null;
+			return (value == null) ? NULL : value;
+		}
+
+		return tail.pollFirst();
+	}
+
+	/**
+	 * 元となる Spliterator から読んだ要素を保持します。
+	 *
+	 * @param value 要素
+	 */
+	private void hold(T value) {
+		holder = value;
+	}
+
+	/**
+	 * バッファーの内容を、ウィンドウとしてコピーします。
+	 *
+	 * @return ウィンドウ
+	 */
+	@SuppressWarnings("unchecked")
+	private List<T> copy() {
+		List<T> list = new ArrayList<>(window.size());
+
+		for (Object value : window) {
+			list.add((value == NULL) ? null : (T) value);
+		}
+
+		return list;
+	}
+}
@@ -0,0 +1,133 @@
+package satomaru.utility.stream;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.stream.StreamSupport;
+
+import satomaru.utility.tools.Pair;
+
+/**
+ * インデックスで要素を取得できる2つのソースを、同じインデックス同士でペアにする Spliterator です。
+ *
+ * <p>
+ * 要素数が分かっているので SIZED かつ SUBSIZED であり、両方のソースを同じインデックスで分割します。
+ * 要素がnullであっても、そのままペアにします。
+ * </p>
+ *
+ * @param <F> 1つ目の要素の型
+ * @param <S> 2つ目の要素の型
+ */
+final class ZipSpliterator<F, S> implements Spliterator<Pair<F, S>> {
+
+	/**
+	 * インデックスで要素を取得する関数から、PairStream を作成します。
+	 *
+	 * @param first 1つ目の要素を取得する関数
+	 * @param second 2つ目の要素を取得する関数
+	 * @param size 要素数
+	 * @return PairStream
+	 */
+	static <F, S> PairStream<F, S> stream(IntFunction<? extends F> first, IntFunction<? extends S> second, int size) {
+		return new PairStreamImpl<>(StreamSupport.stream(new ZipSpliterator<F, S>(first, second, 0, size), false));
+	}
+
+	/**
+	 * ランダムアクセスできるリストを取得します。
+	 *
+	 * @param list リスト
+	 * @return ランダムアクセスできる場合はそのリスト、そうでない場合はコピーしたリスト
+	 */
+	static <E> List<E> randomAccess(List<E> list) {
+		return (list instanceof RandomAccess) ? list : new ArrayList<>(list);
+	}
+
+	/** 1つ目の要素を取得する関数。 */
+	private final IntFunction<? extends F> first;
+
+	/** 2つ目の要素を取得する関数。 */
+	private final IntFunction<? extends S> second;
+
+	/** 現在のインデックス。 */
+	private int index;
+
+	/** 終了インデックス（このインデックスを含まない）。 */
+	private final int fence;
+
+	/**
+	 * コンストラクタ。
+	 *
+	 * @param first 1つ目の要素を取得する関数
+	 * @param second 2つ目の要素を取得する関数
+	 * @param origin 開始インデックス（このインデックスを含む）
+	 * @param fence 終了インデックス（このインデックスを含まない）
+	 */
+	ZipSpliterator(IntFunction<? extends F> first, IntFunction<? extends S> second, int origin, int fence) {
+		this.first = first;
+		this.second = second;
+		this.index = origin;
+		this.fence = fence;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean tryAdvance(Consumer<? super Pair<F, S>> action) {
+		if (index >= fence) {
+			return false;
+		}
+
+		int i = index++;
+		action.accept(new Pair<>(first.apply(i), second.apply(i)));
+		return true;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void forEachRemaining(Consumer<? super Pair<F, S>> action) {
+		int i = index;
+		index = fence;
+
+		for (; i < fence; i++) {
+			action.accept(new Pair<>(first.apply(i), second.apply(i)));
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Spliterator<Pair<F, S>> trySplit() {
+		int origin = index;
+		int mid = (origin + fence) >>> 1;
+
+		if (origin >= mid) {
+			return null;
+		}
+
+		index = mid;
+		return new ZipSpliterator<>(first, second, origin, mid);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long estimateSize() {
+		return fence - index;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int characteristics() {
+		return ORDERED | SIZED | SUBSIZED;
+	}
+}
@@ -0,0 +1,94 @@
+package satomaru.utility.tools;
+
+/**
+ * 重み付きでインデックスを選択する為のエイリアステーブル（Vose's alias method）です。
+ *
+ * <p>
+ * 作成時に O(n) の準備を行い、以降の選択は O(1) で行います。
+ * </p>
+ */
+final class AliasTable {
+
+	/** 各インデックスが、そのまま選択される確率。 */
+	private final double[] probability;
+
+	/** 各インデックスが選択されなかった場合に、代わりに選択されるインデックス。 */
+	private final int[] alias;
+
+	/**
+	 * コンストラクタ。
+	 *
+	 * @param weights 各インデックスの重み
+	 * @throws IllegalArgumentException 重みが負数・非数である場合、または重みの合計が0である場合
+	 */
+	AliasTable(double[] weights) {
+		int size = weights.length;
+		double total = 0;
+
+		for (double weight : weights) {
+			if (!(weight >= 0) || Double.isInfinite(weight)) {
+				throw new IllegalArgumentException("weight: " + weight);
+			}
+
+			total += weight;
+		}
+
+		if (!(total > 0) || Double.isInfinite(total)) {
+			throw new IllegalArgumentException("total weight: " + total);
+		}
+
+		probability = new double[size];
+		alias = new int[size];
+
+		double[] scaled = new double[size];
+		int[] small = new int[size];
+		int[] large = new int[size];
+		int smallCount = 0;
+		int largeCount = 0;
+
+		for (int i = 0; i < size; i++) {
+			scaled[i] = weights[i] * size / total;
+
+			if (scaled[i] < 1) {
+				small[smallCount++] = i;
+			} else {
+				large[largeCount++] = i;
+			}
+		}
+
+		while (smallCount > 0 && largeCount > 0) {
+			int less = small[--smallCount];
+			int more = large[--largeCount];
+
+			probability[less] = scaled[less];
+			alias[less] = more;
+			scaled[more] = (scaled[more] + scaled[less]) - 1;
+
+			if (scaled[more] < 1) {
+				small[smallCount++] = more;
+			} else {
+				large[largeCount++] = more;
+			}
+		}
+
+		// 残ったものは、丸め誤差を除けば確率1になるはず
+		while (largeCount > 0) {
+			probability[large[--largeCount]] = 1;
+		}
+
+		while (smallCount > 0) {
+			probability[small[--smallCount]] = 1;
+		}
+	}
+
+	/**
+	 * インデックスを選択します。
+	 *
+	 * @param random 乱数生成器
+	 * @return 選択されたインデックス
+	 */
+	int next(Randomizer random) {
+		int index = random.nextInt(probability.length);
+		return (random.nextDouble() < probability[index]) ? index : alias[index];
+	}
+}
@@ -0,0 +1,305 @@
+package satomaru.utility.tools;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import satomaru.utility.tools.Result.Invoker;
+import satomaru.utility.tools.Result.Processor;
+
+/**
+ * try-catchを非同期に行うリザルトです。
+ *
+ * <p>
+ * {@link Result} と同じ操作を、呼び出し元のスレッドをブロックせずに、指定された Executor 上で行います。
+ * ブロックするのは {@link #join()} を呼び出した時だけです。
+ * </p>
+ *
+ * @param <T> 処理結果の型
+ */
+public final class AsyncResult<T> {
+
+	/**
+	 * 既定の Executor を保持します。
+	 */
+	private static final class DefaultExecutor {
+
+		/** 既定の Executor。 */
+		private static final Executor INSTANCE = create();
+
+		/**
+		 * 既定の Executor を作成します。
+		 *
+		 * @return 仮想スレッドが使用できる場合は仮想スレッドの Executor、そうでない場合は共通の ForkJoinPool
+		 */
+		private static Executor create() {
+			try {
+				// Java 21 以降でのみ存在するので、リフレクションで呼び出す
+				return (Executor) java.util.concurrent.Executors.class
+						.getMethod("newVirtualThreadPerTaskExecutor")
+						.invoke(null);
+			} catch (ReflectiveOperationException e) {
+				return ForkJoinPool.commonPool();
+			}
+		}
+	}
+
+	/**
+	 * 既定の Executor を取得します。
+	 *
+	 * <p>
+	 * 仮想スレッドが使用できる JDK では、タスクごとに仮想スレッドを起動する Executor になります。
+	 * そうでない場合は、共通の ForkJoinPool になります。
+	 * </p>
+	 *
+	 * @return 既定の Executor
+	 */
+	public static Executor defaultExecutor() {
+		return DefaultExecutor.INSTANCE;
+	}
+
+	/**
+	 * 非同期に処理を行い、リザルトのインスタンスを作成します。
+	 *
+	 * <p>
+	 * 処理結果がnullの場合は、NullPointerExceptionが発生した扱いになります。
+	 * Executor が受け付けない場合は、RejectedExecutionExceptionが発生した扱いになります。
+	 * </p>
+	 *
+	 * @param invoker 処理を行う関数
+	 * @param executor 処理を行う Executor
+	 * @return リザルトのインスタンス
+	 */
+	public static <T> AsyncResult<T> of(Invoker<? extends T> invoker, Executor executor) {
+		return new AsyncResult<>(supply(() -> Result.<T> of(invoker), executor), executor);
+	}
+
+	/**
+	 * 再試行しながら非同期に処理を行い、リザルトのインスタンスを作成します。
+	 *
+	 * <p>
+	 * 再試行までの待機はタイマーで行うので、待機中に Executor のスレッドを占有しません。
+	 * </p>
+	 *
+	 * @param invoker 処理を行う関数
+	 * @param retry 再試行の方針
+	 * @param executor 処理を行う Executor
+	 * @return リザルトのインスタンス（試行回数は {@link Result#attempts()} で取得できます）
+	 */
+	public static <T> AsyncResult<T> of(Invoker<? extends T> invoker, Retry retry, Executor executor) {
+		return new AsyncResult<>(retry.invokeAsync(invoker, executor), executor);
+	}
+
+	/**
+	 * 既定の Executor で非同期に処理を行い、リザルトのインスタンスを作成します。
+	 *
+	 * @param invoker 処理を行う関数
+	 * @return リザルトのインスタンス
+	 * @see #defaultExecutor()
+	 */
+	public static <T> AsyncResult<T> of(Invoker<? extends T> invoker) {
+		return of(invoker, defaultExecutor());
+	}
+
+	/**
+	 * 完了済のリザルトから、インスタンスを作成します。
+	 *
+	 * @param result 完了済のリザルト
+	 * @param executor 後続の処理を行う Executor
+	 * @return リザルトのインスタンス
+	 */
+	public static <T> AsyncResult<T> completed(Result<T> result, Executor executor) {
+		return new AsyncResult<>(CompletableFuture.completedFuture(result), executor);
+	}
+
+	/** リザルトの Future。 */
+	private final CompletableFuture<Result<T>> future;
+
+	/** 後続の処理を行う Executor。 */
+	private final Executor executor;
+
+	/**
+	 * コンストラクタ。
+	 *
+	 * @param future リザルトの Future
+	 * @param executor 後続の処理を行う Executor
+	 */
+	AsyncResult(CompletableFuture<Result<T>> future, Executor executor) {
+		this.future = future;
+		this.executor = executor;
+	}
+
+	/**
+	 * 例外が発生しなかった場合、処理結果をさらに非同期に処理します。
+	 *
+	 * <p>
+	 * 処理結果がnullの場合は、NullPointerExceptionが発生した扱いになります。
+	 * Executor が受け付けない場合は、RejectedExecutionExceptionが発生した扱いになります。
+	 * 例外が発生していた場合は、Executor を使わずにそのまま後続へ渡します。
+	 * </p>
+	 *
+	 * @param processor 処理結果をさらに処理する関数
+	 * @return 処理した後のインスタンス
+	 */
+	public <R> AsyncResult<R> process(Processor<? super T, ? extends R> processor) {
+		return new AsyncResult<>(
+				future.thenCompose(r -> r.isOk()
+						? supply(() -> r.<R> process(processor), executor)
+						: CompletableFuture.completedFuture(r.<R> process(processor))),
+				executor);
+	}
+
+	/**
+	 * 例外が発生しなかった場合、再試行しながら処理結果をさらに非同期に処理します。
+	 *
+	 * <p>
+	 * 再試行までの待機はタイマーで行うので、待機中に Executor のスレッドを占有しません。
+	 * </p>
+	 *
+	 * @param processor 処理結果をさらに処理する関数
+	 * @param retry 再試行の方針
+	 * @return 処理した後のインスタンス
+	 */
+	public <R> AsyncResult<R> process(Processor<? super T, ? extends R> processor, Retry retry) {
+		return new AsyncResult<>(
+				future.thenCompose(r -> r.isOk()
+						? retry.<R> invokeAsync(() -> processor.process(r.value().get()), executor)
+						: CompletableFuture.completedFuture(r.<R> process(processor))),
+				executor);
+	}
+
+	/**
+	 * 例外が発生しなかった場合、処理結果を評価します。
+	 *
+	 * <p>
+	 * 関数で実行時例外が発生した場合は、その例外が発生した扱いになります。
+	 * </p>
+	 *
+	 * @param consumer 処理結果を評価する関数
+	 * @return 評価した後のインスタンス
+	 */
+	public AsyncResult<T> whenOk(Consumer<? super T> consumer) {
+		return evaluate(r -> r.whenOk(consumer));
+	}
+
+	/**
+	 * 例外が発生した場合、その例外を評価します。
+	 *
+	 * <p>
+	 * 関数で実行時例外が発生した場合は、その例外が発生した扱いになります。
+	 * </p>
+	 *
+	 * @param consumer 例外を評価する関数
+	 * @return 評価した後のインスタンス
+	 */
+	public AsyncResult<T> whenNg(Consumer<? super Exception> consumer) {
+		return evaluate(r -> r.whenNg(consumer));
+	}
+
+	/**
+	 * 指定された例外、またはそのサブクラスの例外が発生した場合、その例外を評価します。
+	 *
+	 * <p>
+	 * 関数で実行時例外が発生した場合は、その例外が発生した扱いになります。
+	 * </p>
+	 *
+	 * @param type 評価対象となる例外
+	 * @param consumer 例外を評価する関数
+	 * @return 評価した後のインスタンス
+	 */
+	public <E extends Exception> AsyncResult<T> when(Class<E> type, Consumer<? super E> consumer) {
+		return evaluate(r -> r.when(type, consumer));
+	}
+
+	/**
+	 * リザルトを非同期に評価します。
+	 *
+	 * <p>
+	 * 評価で実行時例外が発生した場合は、Future を例外で完了させずに、その例外のリザルトにします。
+	 * </p>
+	 *
+	 * @param evaluator リザルトを評価する関数
+	 * @return 評価した後のインスタンス
+	 */
+	private AsyncResult<T> evaluate(UnaryOperator<Result<T>> evaluator) {
+		return new AsyncResult<>(future.thenCompose(r -> supply(() -> {
+			try {
+				return evaluator.apply(r);
+			} catch (RuntimeException e) {
+				return Result.ng(e);
+			}
+		}, executor)), executor);
+	}
+
+	/**
+	 * Executor で非同期にリザルトを作成します。
+	 *
+	 * <p>
+	 * Executor が受け付けない場合は、Future を例外で完了させずに、RejectedExecutionExceptionのリザルトにします。
+	 * </p>
+	 *
+	 * @param supplier リザルトを作成する関数
+	 * @param executor 処理を行う Executor
+	 * @return リザルトの Future
+	 */
+	private static <R> CompletableFuture<Result<R>> supply(Supplier<Result<R>> supplier, Executor executor) {
+		try {
+			return CompletableFuture.supplyAsync(supplier, executor);
+		} catch (RejectedExecutionException e) {
+			return CompletableFuture.completedFuture(Result.ng(e));
+		}
+	}
+
+	/**
+	 * 処理が完了したことを判定します。
+	 *
+	 * @return 処理が完了した場合はtrue
+	 */
+	public boolean isDone() {
+		return future.isDone();
+	}
+
+	/**
+	 * 処理が完了している場合は、そのリザルトを取得します。
+	 *
+	 * <p>
+	 * このメソッドはブロックしません。
+	 * </p>
+	 *
+	 * @return 処理が完了している場合はリザルト
+	 */
+	public Optional<Result<T>> poll() {
+		return Optional.ofNullable(future.getNow(null));
+	}
+
+	/**
+	 * 処理の完了を待って、リザルトを取得します。
+	 *
+	 * <p>
+	 * このメソッドは、処理が完了するまでブロックします。
+	 * </p>
+	 *
+	 * @return リザルト
+	 */
+	public Result<T> join() {
+		return future.join();
+	}
+
+	/**
+	 * リザルトの Future を取得します。
+	 *
+	 * <p>
+	 * Future が例外で完了することはありません（Error を除く）。
+	 * </p>
+	 *
+	 * @return リザルトの Future
+	 */
+	public CompletableFuture<Result<T>> toFuture() {
+		return future;
+	}
+}
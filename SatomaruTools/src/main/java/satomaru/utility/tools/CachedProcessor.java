@@ -0,0 +1,447 @@
+package satomaru.utility.tools;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import satomaru.utility.tools.Result.Processor;
+
+/**
+ * 処理結果をキャッシュする {@link Processor} です。
+ *
+ * <p>
+ * 同じ値に対する処理結果を保持し、再度同じ値を処理する時は、処理を行わずに保持した結果を返却します。
+ * 保持する数は上限があり、最も長く参照されていない値から破棄します（LRU）。
+ * 処理中に発生した例外も、指定された時間だけ保持して、そのまま送出します（ネガティブキャッシュ）。
+ * 元の関数がnullを返却した場合も、そのまま保持して返却します。
+ * </p>
+ *
+ * <p>
+ * このクラスはスレッドセーフです。
+ * キャッシュは値のハッシュで複数の区画に分けており、区画ごとにロックするので、並列 Stream からも使用できます。
+ * その代わり、LRU は区画ごとに判定するので、厳密な LRU ではありません。
+ * また、同じ値を同時に処理した場合は、それぞれのスレッドで処理を行います。
+ * </p>
+ *
+ * @param <T> 処理対象の型
+ * @param <R> 処理結果の型
+ */
+public final class CachedProcessor<T, R> implements Processor<T, R> {
+
+	/**
+	 * キャッシュする Processor を作成します。
+	 *
+	 * @param <T> 処理対象の型
+	 * @param <R> 処理結果の型
+	 */
+	public static final class Builder<T, R> {
+
+		/** ナノ秒で表せる最大の時間（これ以上は無期限として扱います）。 */
+		private static final Duration FOREVER = Duration.ofNanos(Long.MAX_VALUE);
+
+		/** 処理を行う関数。 */
+		private final Processor<? super T, ? extends R> processor;
+
+		/** 保持する処理結果の上限。 */
+		private int maximumSize = 1024;
+
+		/** 処理結果を保持する時間（ナノ秒）。 */
+		private long okNanos = Long.MAX_VALUE;
+
+		/** 例外を保持する時間（ナノ秒）。 */
+		private long ngNanos = 0;
+
+		/**
+		 * コンストラクタ。
+		 *
+		 * @param processor 処理を行う関数
+		 */
+		private Builder(Processor<? super T, ? extends R> processor) {
+			this.processor = processor;
+		}
+
+		/**
+		 * 保持する処理結果の上限を指定します（既定値は1024）。
+		 *
+		 * @param maximumSize 保持する処理結果の上限
+		 * @return このインスタンス自身
+		 * @throws IllegalArgumentException 上限が1未満の場合
+		 */
+		public Builder<T, R> maximumSize(int maximumSize) {
+			if (maximumSize < 1) {
+				throw new IllegalArgumentException("maximumSize: " + maximumSize);
+			}
+
+			this.maximumSize = maximumSize;
+			return this;
+		}
+
+		/**
+		 * 処理結果を保持する時間を指定します（既定値は無期限）。
+		 *
+		 * <p>
+		 * ナノ秒で表せない（約292年を超える）時間は、無期限として扱います。
+		 * </p>
+		 *
+		 * @param ttl 処理してから破棄するまでの時間
+		 * @return このインスタンス自身
+		 * @throws IllegalArgumentException 時間が負数の場合
+		 */
+		public Builder<T, R> expireAfterWrite(Duration ttl) {
+			okNanos = toNanos("ttl", ttl);
+			return this;
+		}
+
+		/**
+		 * 例外を保持する時間を指定します（既定値は保持しない）。
+		 *
+		 * <p>
+		 * ナノ秒で表せない（約292年を超える）時間は、無期限として扱います。
+		 * </p>
+		 *
+		 * @param ttl 例外が発生してから破棄するまでの時間
+		 * @return このインスタンス自身
+		 * @throws IllegalArgumentException 時間が負数の場合
+		 */
+		public Builder<T, R> cacheFailures(Duration ttl) {
+			ngNanos = toNanos("ttl", ttl);
+			return this;
+		}
+
+		/**
+		 * キャッシュする Processor を作成します。
+		 *
+		 * @return キャッシュする Processor
+		 */
+		public CachedProcessor<T, R> build() {
+			return new CachedProcessor<>(processor, maximumSize, okNanos, ngNanos);
+		}
+
+		/**
+		 * 保持する時間を、ナノ秒に変換します。
+		 *
+		 * @param name 引数の名前
+		 * @param ttl 保持する時間
+		 * @return ナノ秒（ナノ秒で表せない場合は無期限を表す Long.MAX_VALUE）
+		 * @throws IllegalArgumentException 時間が負数の場合
+		 */
+		private static long toNanos(String name, Duration ttl) {
+			if (ttl.isNegative()) {
+				throw new IllegalArgumentException(name + ": " + ttl);
+			}
+
+			return (ttl.compareTo(FOREVER) >= 0) ? Long.MAX_VALUE : ttl.toNanos();
+		}
+	}
+
+	/**
+	 * キャッシュする Processor のビルダーを作成します。
+	 *
+	 * @param processor 処理を行う関数
+	 * @return ビルダー
+	 */
+	public static <T, R> Builder<T, R> of(Processor<? super T, ? extends R> processor) {
+		return new Builder<>(processor);
+	}
+
+	/**
+	 * 保持している処理結果です。
+	 *
+	 * @param <R> 処理結果の型
+	 */
+	private static final class Entry<R> {
+
+		/** 処理結果。 */
+		private final R result;
+
+		/** 処理中に発生した例外（発生しなかった場合はnull）。 */
+		private final Exception exception;
+
+		/** 破棄する時刻（無期限の場合は Long.MAX_VALUE）。 */
+		final long expiresAt;
+
+		/**
+		 * コンストラクタ。
+		 *
+		 * @param result 処理結果
+		 * @param exception 処理中に発生した例外
+		 * @param expiresAt 破棄する時刻
+		 */
+		Entry(R result, Exception exception, long expiresAt) {
+			this.result = result;
+			this.exception = exception;
+			this.expiresAt = expiresAt;
+		}
+
+		/**
+		 * 保持している処理結果を返却するか、保持している例外を送出します。
+		 *
+		 * @return 処理結果
+		 * @throws Exception 処理中に発生した例外
+		 */
+		R get() throws Exception {
+			if (exception != null) {
+				throw exception;
+			}
+
+			return result;
+		}
+
+		/**
+		 * 破棄する時刻を過ぎたことを判定します。
+		 *
+		 * @param now 現在時刻
+		 * @return 破棄する時刻を過ぎた場合はtrue
+		 */
+		boolean isExpired(long now) {
+			return expiresAt != Long.MAX_VALUE && now - expiresAt >= 0;
+		}
+	}
+
+	/**
+	 * キャッシュの区画です。
+	 *
+	 * <p>
+	 * アクセス順の LinkedHashMap なので、上限を超えた時は最も長く参照されていない値を破棄します。
+	 * 操作する時は、このインスタンスでロックします。
+	 * </p>
+	 *
+	 * @param <R> 処理結果の型
+	 */
+	private static final class Segment<R> extends LinkedHashMap<Object, Entry<R>> {
+
+		private static final long serialVersionUID = 1L;
+
+		/** 保持する処理結果の上限。 */
+		private final int capacity;
+
+		/** 上限を超えて破棄した回数。 */
+		private final LongAdder evictions;
+
+		/**
+		 * コンストラクタ。
+		 *
+		 * @param capacity 保持する処理結果の上限
+		 * @param evictions 上限を超えて破棄した回数
+		 */
+		Segment(int capacity, LongAdder evictions) {
+			super(16, 0.75f, true);
+			this.capacity = capacity;
+			this.evictions = evictions;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Object, Entry<R>> eldest) {
+			if (size() <= capacity) {
+				return false;
+			}
+
+			evictions.increment();
+			return true;
+		}
+	}
+
+	/** 1区画あたりの処理結果の最小数。 */
+	private static final int MIN_SEGMENT_SIZE = 16;
+
+	/** 処理を行う関数。 */
+	private final Processor<? super T, ? extends R> processor;
+
+	/** 処理結果を保持する時間（ナノ秒）。 */
+	private final long okNanos;
+
+	/** 例外を保持する時間（ナノ秒）。 */
+	private final long ngNanos;
+
+	/** 保持する時間が有限である場合はtrue。 */
+	private final boolean expiring;
+
+	/** キャッシュの区画。 */
+	private final Segment<R>[] segments;
+
+	/** キャッシュにあった回数。 */
+	private final LongAdder hits = new LongAdder();
+
+	/** キャッシュになかった回数。 */
+	private final LongAdder misses = new LongAdder();
+
+	/** 上限を超えて破棄した回数。 */
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * コンストラクタ。
+	 *
+	 * @param processor 処理を行う関数
+	 * @param maximumSize 保持する処理結果の上限
+	 * @param okNanos 処理結果を保持する時間
+	 * @param ngNanos 例外を保持する時間
+	 */
+	@SuppressWarnings("unchecked")
+	private CachedProcessor(Processor<? super T, ? extends R> processor, int maximumSize, long okNanos, long ngNanos) {
+		this.processor = processor;
+		this.okNanos = okNanos;
+		this.ngNanos = ngNanos;
+		this.expiring = okNanos != Long.MAX_VALUE || (ngNanos > 0 && ngNanos != Long.MAX_VALUE);
+
+		// 区画の数は2の冪で、CPU数の2倍まで（ただし各区画が小さくなり過ぎない範囲）
+		int limit = Runtime.getRuntime().availableProcessors() * 2;
+		int count = 1;
+
+		while (count < limit && (long) count * 2 * MIN_SEGMENT_SIZE <= maximumSize) {
+			count <<= 1;
+		}
+
+		segments = (Segment<R>[]) new Segment<?>[count];
+
+		for (int i = 0; i < count; i++) {
+			// 上限を区画の数で均等に分ける（端数は先頭の区画に割り当てる）
+			segments[i] = new Segment<>(maximumSize / count + ((i < maximumSize % count) ? 1 : 0), evictions);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>
+	 * キャッシュにある場合は、処理を行わずに保持した処理結果を返却するか、保持した例外を送出します。
+	 * </p>
+	 */
+	@Override
+	public R process(T value) throws Exception {
+		Segment<R> segment = segmentFor(value);
+		long now = expiring ? System.nanoTime() : 0;
+		Entry<R> entry;
+
+		synchronized (segment) {
+			entry = segment.get(value);
+
+			if (entry != null && entry.isExpired(now)) {
+				segment.remove(value);
+				entry = null;
+			}
+		}
+
+		if (entry != null) {
+			hits.increment();
+			return entry.get();
+		}
+
+		misses.increment();
+		R result;
+
+		try {
+			result = processor.process(value);
+		} catch (Exception e) {
+			put(segment, value, new Entry<>(null, e, expiresAt(now, ngNanos)), ngNanos);
+			throw e;
+		}
+
+		put(segment, value, new Entry<>(result, null, expiresAt(now, okNanos)), okNanos);
+		return result;
+	}
+
+	/**
+	 * キャッシュにあった回数を取得します。
+	 *
+	 * @return キャッシュにあった回数
+	 */
+	public long hitCount() {
+		return hits.sum();
+	}
+
+	/**
+	 * キャッシュになかった回数を取得します。
+	 *
+	 * @return キャッシュになかった回数
+	 */
+	public long missCount() {
+		return misses.sum();
+	}
+
+	/**
+	 * 上限を超えて破棄した回数を取得します。
+	 *
+	 * <p>
+	 * 保持する時間を過ぎて破棄した回数は含みません。
+	 * </p>
+	 *
+	 * @return 上限を超えて破棄した回数
+	 */
+	public long evictionCount() {
+		return evictions.sum();
+	}
+
+	/**
+	 * 保持している処理結果の数を取得します。
+	 *
+	 * <p>
+	 * 保持する時間を過ぎていても、まだ参照されていない処理結果を含みます。
+	 * </p>
+	 *
+	 * @return 保持している処理結果の数
+	 */
+	public int size() {
+		int size = 0;
+
+		for (Segment<R> segment : segments) {
+			synchronized (segment) {
+				size += segment.size();
+			}
+		}
+
+		return size;
+	}
+
+	/**
+	 * 保持している処理結果を、全て破棄します。
+	 */
+	public void invalidateAll() {
+		for (Segment<R> segment : segments) {
+			synchronized (segment) {
+				segment.clear();
+			}
+		}
+	}
+
+	/**
+	 * 保持する時間が0より大きい場合は、処理結果を区画に保持します。
+	 *
+	 * @param segment 区画
+	 * @param value 値
+	 * @param entry 処理結果
+	 * @param ttl 保持する時間
+	 */
+	private static <R> void put(Segment<R> segment, Object value, Entry<R> entry, long ttl) {
+		if (ttl > 0) {
+			synchronized (segment) {
+				segment.put(value, entry);
+			}
+		}
+	}
+
+	/**
+	 * 破棄する時刻を計算します。
+	 *
+	 * @param now 現在時刻
+	 * @param ttl 保持する時間
+	 * @return 破棄する時刻（無期限の場合は Long.MAX_VALUE）
+	 */
+	private static long expiresAt(long now, long ttl) {
+		return (ttl == Long.MAX_VALUE) ? Long.MAX_VALUE : now + ttl;
+	}
+
+	/**
+	 * 値が属する区画を取得します。
+	 *
+	 * @param value 値
+	 * @return 区画
+	 */
+	private Segment<R> segmentFor(Object value) {
+		int h = (value == null) ? 0 : value.hashCode();
+		return segments[(h ^ (h >>> 16)) & (segments.length - 1)];
+	}
+}
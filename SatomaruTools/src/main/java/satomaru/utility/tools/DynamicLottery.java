@@ -0,0 +1,360 @@
+package satomaru.utility.tools;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 重みを後から変更できる、重み付きのロッテリーです。
+ *
+ * <p>
+ * 重みはフェニック木（Binary Indexed Tree）で管理しており、
+ * 重みの変更・要素の追加・要素の削除・選択は、いずれも O(log n) で行います。
+ * </p>
+ *
+ * <p>
+ * このクラスはスレッドセーフではありません。
+ * </p>
+ *
+ * @param <T> 要素
+ */
+public final class DynamicLottery<T> implements Lottery<T> {
+
+	/** フェニック木で引き直す回数の上限。 */
+	private static final int MAX_RETRIES = 16;
+
+	/** 要素。 */
+	private Object[] values;
+
+	/** 各要素の重み。 */
+	private double[] weights;
+
+	/** フェニック木（1オリジン）。 */
+	private double[] tree;
+
+	/** 要素から、そのインデックスを引く為のマップ。 */
+	private final HashMap<T, Integer> indexes;
+
+	/** 要素の数。 */
+	private int size;
+
+	/** 重みが正の要素の数（フェニック木の誤差に左右されない）。 */
+	private int positives;
+
+	/** 乱数生成器。 */
+	private final Randomizer random;
+
+	/**
+	 * コンストラクタ。
+	 *
+	 * @param values 要素
+	 * @param weights 各要素の重み（要素と同じ順番）
+	 * @param random 乱数生成器
+	 * @throws IllegalArgumentException 要素が重複している場合、または重みが不正な場合
+	 */
+	DynamicLottery(List<T> values, double[] weights, Randomizer random) {
+		this.random = random;
+		int capacity = Math.max(values.size(), 8);
+		this.values = new Object[capacity];
+		this.weights = new double[capacity];
+		this.indexes = new HashMap<>(capacity * 2);
+
+		for (int i = 0; i < weights.length; i++) {
+			T value = values.get(i);
+
+			if (indexes.put(value, i) != null) {
+				throw new IllegalArgumentException("duplicate value: " + value);
+			}
+
+			this.values[i] = value;
+			this.weights[i] = checkWeight(weights[i]);
+			count(0, weights[i]);
+		}
+
+		size = weights.length;
+		rebuild();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Optional<T> draw() {
+		if (positives == 0) {
+			return Optional.empty();
+		}
+
+		double total = prefix(size);
+
+		for (int i = 0; i < MAX_RETRIES; i++) {
+			int index = search(random.nextDouble() * total);
+
+			// 浮動小数点の誤差により、重み0の要素や範囲外が選ばれた場合は引き直す
+			if (index < size && weights[index] > 0) {
+				return Optional.of(value(index));
+			}
+		}
+
+		// 誤差が蓄積しているので、フェニック木を作り直し、今回は重みから直接選ぶ
+		rebuild();
+		return Optional.of(value(scan(random.nextDouble() * prefix(size))));
+	}
+
+	/**
+	 * 要素の重みを取得します。
+	 *
+	 * @param value 要素
+	 * @return 要素の重み（要素が存在しない場合は0）
+	 */
+	public double getWeight(T value) {
+		Integer index = indexes.get(value);
+		return (index != null) ? weights[index] : 0;
+	}
+
+	/**
+	 * 要素の重みを設定します。
+	 *
+	 * <p>
+	 * 要素が存在しない場合は、追加します。
+	 * </p>
+	 *
+	 * @param value 要素
+	 * @param weight 重み
+	 * @throws IllegalArgumentException 重みが負数・非数の場合
+	 */
+	public void setWeight(T value, double weight) {
+		Integer index = indexes.get(value);
+
+		if (index == null) {
+			add(value, weight);
+			return;
+		}
+
+		double old = weights[index];
+		update(index, checkWeight(weight) - old);
+		weights[index] = weight;
+		count(old, weight);
+	}
+
+	/**
+	 * 要素を追加します。
+	 *
+	 * @param value 要素
+	 * @param weight 重み
+	 * @return 追加した場合はtrue、既に存在していた場合はfalse
+	 * @throws IllegalArgumentException 重みが負数・非数の場合
+	 */
+	public boolean add(T value, double weight) {
+		checkWeight(weight);
+
+		if (indexes.containsKey(value)) {
+			return false;
+		}
+
+		if (size == values.length) {
+			values = Arrays.copyOf(values, size * 2);
+			weights = Arrays.copyOf(weights, size * 2);
+			rebuild();
+		}
+
+		int index = size++;
+		indexes.put(value, index);
+		values[index] = value;
+		weights[index] = weight;
+		update(index, weight);
+		count(0, weight);
+		return true;
+	}
+
+	/**
+	 * 要素を削除します。
+	 *
+	 * @param value 要素
+	 * @return 削除した場合はtrue、存在しなかった場合はfalse
+	 */
+	public boolean remove(T value) {
+		Integer index = indexes.remove(value);
+
+		if (index == null) {
+			return false;
+		}
+
+		double removed = weights[index];
+		int last = --size;
+
+		// 末尾の要素を、削除した要素の位置へ移動する
+		if (index != last) {
+			T moved = value(last);
+			update(index, weights[last] - weights[index]);
+			values[index] = moved;
+			weights[index] = weights[last];
+			indexes.put(moved, index);
+		}
+
+		update(last, -weights[last]);
+		values[last] = null;
+		weights[last] = 0;
+		count(removed, 0);
+		return true;
+	}
+
+	/**
+	 * 要素の数を取得します。
+	 *
+	 * @return 要素の数
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * 重みの合計を取得します。
+	 *
+	 * @return 重みの合計
+	 */
+	public double totalWeight() {
+		return (positives > 0) ? prefix(size) : 0;
+	}
+
+	/**
+	 * 要素を取得します。
+	 *
+	 * @param index インデックス
+	 * @return 要素
+	 */
+	@SuppressWarnings("unchecked")
+	private T value(int index) {
+		return (T) values[index];
+	}
+
+	/**
+	 * 重みを検査します。
+	 *
+	 * @param weight 重み
+	 * @return 重み
+	 * @throws IllegalArgumentException 重みが負数・非数の場合
+	 */
+	private static double checkWeight(double weight) {
+		if (!(weight >= 0) || Double.isInfinite(weight)) {
+			throw new IllegalArgumentException("weight: " + weight);
+		}
+
+		return weight;
+	}
+
+	/**
+	 * 重みが変わった時に、重みが正の要素の数を更新します。
+	 *
+	 * <p>
+	 * 全ての重みが0になった場合は、フェニック木に残った誤差を消す為に作り直します。
+	 * </p>
+	 *
+	 * @param oldWeight 変更前の重み
+	 * @param newWeight 変更後の重み
+	 */
+	private void count(double oldWeight, double newWeight) {
+		if (oldWeight > 0) {
+			positives--;
+		}
+
+		if (newWeight > 0) {
+			positives++;
+		}
+
+		if (positives == 0 && oldWeight > 0 && tree != null) {
+			rebuild();
+		}
+	}
+
+	/**
+	 * 現在の重みから、フェニック木を O(n) で作り直します。
+	 */
+	private void rebuild() {
+		int capacity = weights.length;
+		tree = new double[capacity + 1];
+		System.arraycopy(weights, 0, tree, 1, capacity);
+
+		for (int i = 1; i <= capacity; i++) {
+			int parent = i + (i & -i);
+
+			if (parent <= capacity) {
+				tree[parent] += tree[i];
+			}
+		}
+	}
+
+	/**
+	 * 重みを加算します。
+	 *
+	 * @param index インデックス
+	 * @param delta 加算する重み
+	 */
+	private void update(int index, double delta) {
+		for (int i = index + 1; i < tree.length; i += i & -i) {
+			tree[i] += delta;
+		}
+	}
+
+	/**
+	 * 先頭から指定された数の要素の、重みの合計を取得します。
+	 *
+	 * @param count 要素の数
+	 * @return 重みの合計
+	 */
+	private double prefix(int count) {
+		double sum = 0;
+
+		for (int i = count; i > 0; i -= i & -i) {
+			sum += tree[i];
+		}
+
+		return sum;
+	}
+
+	/**
+	 * 重みの累積が、指定された値を超える最初のインデックスを探します。
+	 *
+	 * @param target 探す値
+	 * @return インデックス
+	 */
+	private int search(double target) {
+		int position = 0;
+		double remaining = target;
+
+		for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1) {
+			int next = position + step;
+
+			if (next < tree.length && tree[next] <= remaining) {
+				position = next;
+				remaining -= tree[next];
+			}
+		}
+
+		return position;
+	}
+
+	/**
+	 * 重みの累積が、指定された値を超える最初のインデックスを、重みの配列から O(n) で探します。
+	 *
+	 * @param target 探す値
+	 * @return インデックス（誤差で見つからない場合は、重みが正の最後の要素）
+	 */
+	private int scan(double target) {
+		double sum = 0;
+		int found = -1;
+
+		for (int i = 0; i < size; i++) {
+			if (weights[i] > 0) {
+				found = i;
+				sum += weights[i];
+
+				if (sum > target) {
+					break;
+				}
+			}
+		}
+
+		return found;
+	}
+}
@@ -0,0 +1,109 @@
+package satomaru.utility.tools;
+
+/**
+ * スタックトレースを記録しない、軽量な例外です。
+ *
+ * <p>
+ * {@link Result.Processor} の中で、入力データの不備など想定済の失敗を通知する為に送出します。
+ * 通常の例外と異なり、生成時にスタックトレースを記録しないので、大量に失敗する場合でも高速です。
+ * </p>
+ *
+ * <p>
+ * デバッグ時にスタックトレースが必要な場合は、{@link #setStackTraceEnabled(boolean)} を呼び出すか、
+ * システムプロパティ {@code satomaru.failure.stacktrace} に true を指定してください。
+ * </p>
+ */
+public class Failure extends Exception {
+
+	private static final long serialVersionUID = 1L;
+
+	/** スタックトレースを記録する場合はtrue。 */
+	private static volatile boolean stackTraceEnabled = Boolean.getBoolean("satomaru.failure.stacktrace");
+
+	/**
+	 * スタックトレースを記録するかどうかを設定します。
+	 *
+	 * @param enabled スタックトレースを記録する場合はtrue
+	 */
+	public static void setStackTraceEnabled(boolean enabled) {
+		stackTraceEnabled = enabled;
+	}
+
+	/**
+	 * スタックトレースを記録するかどうかを取得します。
+	 *
+	 * @return スタックトレースを記録する場合はtrue
+	 */
+	public static boolean isStackTraceEnabled() {
+		return stackTraceEnabled;
+	}
+
+	/**
+	 * 使い回すことができる、定数としての失敗を作成します。
+	 *
+	 * <p>
+	 * 定数としての失敗は、{@link #setStackTraceEnabled(boolean)} の設定に関わらず、スタックトレースを記録しません。
+	 * 送出の度に生成しなくてよいので、最も軽量です。
+	 * </p>
+	 *
+	 * @param code 失敗を識別するコード
+	 * @param message メッセージ
+	 * @return 定数としての失敗
+	 */
+	public static Failure constant(String code, String message) {
+		return new Failure(code, message, false);
+	}
+
+	/** 失敗を識別するコード。 */
+	private final String code;
+
+	/**
+	 * コンストラクタ。
+	 *
+	 * @param code 失敗を識別するコード
+	 * @param message メッセージ
+	 */
+	public Failure(String code, String message) {
+		this(code, message, stackTraceEnabled);
+	}
+
+	/**
+	 * コンストラクタ。
+	 *
+	 * @param message メッセージ
+	 */
+	public Failure(String message) {
+		this(null, message);
+	}
+
+	/**
+	 * コンストラクタ。
+	 *
+	 * @param code 失敗を識別するコード
+	 * @param message メッセージ
+	 * @param stackTrace スタックトレースを記録する場合はtrue
+	 */
+	private Failure(String code, String message, boolean stackTrace) {
+		super(message, null, stackTrace, stackTrace);
+		this.code = code;
+	}
+
+	/**
+	 * 失敗を識別するコードを取得します。
+	 *
+	 * @return 失敗を識別するコード（指定されなかった場合はnull）
+	 */
+	public String getCode() {
+		return code;
+	}
+
+	/**
+	 * 文字列表現を取得します。
+	 *
+	 * @return 文字列表現
+	 */
+	@Override
+	public String toString() {
+		return (code != null) ? String.format("%s[%s]: %s", getClass().getName(), code, getMessage()) : super.toString();
+	}
+}
@@ -0,0 +1,225 @@
+package satomaru.utility.tools;
+
+import java.util.NoSuchElementException;
+
+/**
+ * int の値をランダムに選択する為のツールです。
+ *
+ * <p>
+ * {@link Lottery} と異なり、選択の度に Optional やボクシングによる生成を行いません。
+ * 空であることは {@link #hasNext()} で判定してください。
+ * </p>
+ */
+public interface IntLottery {
+
+	/**
+	 * まだ選択できる値が存在することを判定します。
+	 *
+	 * @return まだ選択できる値が存在する場合はtrue
+	 */
+	boolean hasNext();
+
+	/**
+	 * 値をランダムに選択します。
+	 *
+	 * @return 選択された値
+	 * @throws NoSuchElementException 選択できる値が存在しない場合
+	 */
+	int drawInt();
+
+	/**
+	 * int のロッテリーを作成するビルダーです。
+	 */
+	class Builder {
+
+		/** ロッテリーで扱う値（範囲の場合はnull）。 */
+		private final int[] values;
+
+		/** 範囲の開始値。 */
+		private final int from;
+
+		/** 値の数。 */
+		private final int size;
+
+		/** 乱数の生成方法。 */
+		private Randomizer random = Randomizer.threadLocal();
+
+		/**
+		 * コンストラクタ。
+		 *
+		 * @param values ロッテリーで扱う値（範囲の場合はnull）
+		 * @param from 範囲の開始値
+		 * @param size 値の数
+		 */
+		private Builder(int[] values, int from, int size) {
+			this.values = values;
+			this.from = from;
+			this.size = size;
+		}
+
+		/**
+		 * 乱数の生成方法を指定します。
+		 *
+		 * @param random 乱数の生成方法
+		 * @return このインスタンス自身
+		 */
+		public Builder random(Randomizer random) {
+			this.random = random;
+			return this;
+		}
+
+		/**
+		 * 標準的なロッテリーを作成します。
+		 *
+		 * @return 標準的なロッテリー
+		 */
+		public IntLottery standard() {
+			Randomizer random = this.random;
+
+			return new IntLottery() {
+
+				@Override
+				public boolean hasNext() {
+					return size > 0;
+				}
+
+				@Override
+				public int drawInt() {
+					if (size == 0) {
+						throw new NoSuchElementException();
+					}
+
+					return value(random.nextInt(size));
+				}
+			};
+		}
+
+		/**
+		 * ボックスタイプ（引いた値はなくなる）のロッテリーを作成します。
+		 *
+		 * <p>
+		 * 値を配列に1回コピーし、シャッフルは引く度に Fisher–Yates の1ステップずつ行います。
+		 * </p>
+		 *
+		 * @return ボックスタイプ（引いた値はなくなる）のロッテリー
+		 */
+		public IntLottery box() {
+			int[] array = toArray();
+			Randomizer random = this.random;
+
+			return new IntLottery() {
+
+				/** まだ引かれていない値の数。 */
+				private int remaining = array.length;
+
+				@Override
+				public boolean hasNext() {
+					return remaining > 0;
+				}
+
+				@Override
+				public int drawInt() {
+					if (remaining == 0) {
+						throw new NoSuchElementException();
+					}
+
+					int last = --remaining;
+					int index = random.nextInt(last + 1);
+					int value = array[index];
+					array[index] = array[last];
+					return value;
+				}
+			};
+		}
+
+		/**
+		 * 重み付きのロッテリーを作成します。
+		 *
+		 * <p>
+		 * 作成時に O(n) の準備を行い、以降の選択は O(1) で行います。
+		 * </p>
+		 *
+		 * @param weights 各値の重み（値と同じ順番）
+		 * @return 重み付きのロッテリー
+		 * @throws IllegalArgumentException 重みの数が値の数と異なる場合、重みが負数の場合、または重みの合計が0の場合
+		 */
+		public IntLottery weighted(double... weights) {
+			if (weights.length != size) {
+				throw new IllegalArgumentException("weights: " + weights.length + ", values: " + size);
+			}
+
+			AliasTable table = new AliasTable(weights.clone());
+			Randomizer random = this.random;
+
+			return new IntLottery() {
+
+				@Override
+				public boolean hasNext() {
+					return true;
+				}
+
+				@Override
+				public int drawInt() {
+					return value(table.next(random));
+				}
+			};
+		}
+
+		/**
+		 * 値を取得します。
+		 *
+		 * @param index インデックス
+		 * @return 値
+		 */
+		private int value(int index) {
+			return (values != null) ? values[index] : from + index;
+		}
+
+		/**
+		 * 値を新しい配列にコピーします。
+		 *
+		 * @return 値の配列
+		 */
+		private int[] toArray() {
+			if (values != null) {
+				return values.clone();
+			}
+
+			int[] array = new int[size];
+
+			for (int i = 0; i < size; i++) {
+				array[i] = from + i;
+			}
+
+			return array;
+		}
+	}
+
+	/**
+	 * ロッテリーを作成するビルダーを準備します。
+	 *
+	 * @param values ロッテリーで扱う値
+	 * @return ビルダー
+	 */
+	static Builder build(int... values) {
+		return new Builder(values.clone(), 0, values.length);
+	}
+
+	/**
+	 * 範囲の値を扱う、ロッテリーを作成するビルダーを準備します。
+	 *
+	 * @param from 開始値（この値を含む）
+	 * @param to 終了値（この値を含まない）
+	 * @return ビルダー
+	 * @throws IllegalArgumentException 範囲が不正な場合
+	 */
+	static Builder range(int from, int to) {
+		long size = (long) to - from;
+
+		if (size < 0 || size > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("from: " + from + ", to: " + to);
+		}
+
+		return new Builder(null, from, (int) size);
+	}
+}
@@ -0,0 +1,56 @@
+package satomaru.utility.tools;
+
+import java.util.Optional;
+
+/**
+ * 引く度に Fisher–Yates の1ステップだけシャッフルを行う、ボックスタイプ（引いた要素はなくなる）のロッテリーです。
+ *
+ * <p>
+ * 作成時に全体をシャッフルしないので、少しだけ引く場合に向いています。
+ * このクラスはスレッドセーフではありません。
+ * </p>
+ *
+ * @param <T> 要素
+ */
+final class LazyBoxLottery<T> implements Lottery<T> {
+
+	/** まだ引かれていない要素（先頭から remaining 個）。 */
+	private final Object[] array;
+
+	/** まだ引かれていない要素の数。 */
+	private int remaining;
+
+	/** 乱数生成器。 */
+	private final Randomizer random;
+
+	/**
+	 * コンストラクタ。
+	 *
+	 * @param array 要素（このインスタンスが所有し、並べ替えます）
+	 * @param random 乱数生成器
+	 */
+	LazyBoxLottery(Object[] array, Randomizer random) {
+		this.array = array;
+		this.random = random;
+		this.remaining = array.length;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Optional<T> draw() {
+		if (remaining == 0) {
+			return Optional.empty();
+		}
+
+		int last = --remaining;
+		int index = random.nextInt(last + 1);
+
+		@SuppressWarnings("unchecked")
+		T value = (T) array[index];
+		array[index] = array[last];
+		array[last] = null;
+		return Optional.ofNullable(value);
+	}
+}
@@ -0,0 +1,261 @@
+package satomaru.utility.tools;
+
+import java.util.NoSuchElementException;
+
+/**
+ * long の値をランダムに選択する為のツールです。
+ *
+ * <p>
+ * {@link Lottery} と異なり、選択の度に Optional やボクシングによる生成を行いません。
+ * 空であることは {@link #hasNext()} で判定してください。
+ * </p>
+ */
+public interface LongLottery {
+
+	/**
+	 * まだ選択できる値が存在することを判定します。
+	 *
+	 * @return まだ選択できる値が存在する場合はtrue
+	 */
+	boolean hasNext();
+
+	/**
+	 * 値をランダムに選択します。
+	 *
+	 * @return 選択された値
+	 * @throws NoSuchElementException 選択できる値が存在しない場合
+	 */
+	long drawLong();
+
+	/**
+	 * long のロッテリーを作成するビルダーです。
+	 */
+	class Builder {
+
+		/** ロッテリーで扱う値（範囲の場合はnull）。 */
+		private final long[] values;
+
+		/** 範囲の開始値。 */
+		private final long from;
+
+		/** 値の数。 */
+		private final long size;
+
+		/** 乱数の生成方法。 */
+		private Randomizer random = Randomizer.threadLocal();
+
+		/**
+		 * コンストラクタ。
+		 *
+		 * @param values ロッテリーで扱う値（範囲の場合はnull）
+		 * @param from 範囲の開始値
+		 * @param size 値の数
+		 */
+		private Builder(long[] values, long from, long size) {
+			this.values = values;
+			this.from = from;
+			this.size = size;
+		}
+
+		/**
+		 * 乱数の生成方法を指定します。
+		 *
+		 * @param random 乱数の生成方法
+		 * @return このインスタンス自身
+		 */
+		public Builder random(Randomizer random) {
+			this.random = random;
+			return this;
+		}
+
+		/**
+		 * 標準的なロッテリーを作成します。
+		 *
+		 * @return 標準的なロッテリー
+		 */
+		public LongLottery standard() {
+			Randomizer random = this.random;
+
+			return new LongLottery() {
+
+				@Override
+				public boolean hasNext() {
+					return size > 0;
+				}
+
+				@Override
+				public long drawLong() {
+					if (size == 0) {
+						throw new NoSuchElementException();
+					}
+
+					return value(random.nextLong(size));
+				}
+			};
+		}
+
+		/**
+		 * ボックスタイプ（引いた値はなくなる）のロッテリーを作成します。
+		 *
+		 * <p>
+		 * 値を配列に1回コピーし、シャッフルは引く度に Fisher–Yates の1ステップずつ行います。
+		 * </p>
+		 *
+		 * @return ボックスタイプ（引いた値はなくなる）のロッテリー
+		 * @throws IllegalStateException 値の数が配列に収まらない場合
+		 */
+		public LongLottery box() {
+			long[] array = toArray();
+			Randomizer random = this.random;
+
+			return new LongLottery() {
+
+				/** まだ引かれていない値の数。 */
+				private int remaining = array.length;
+
+				@Override
+				public boolean hasNext() {
+					return remaining > 0;
+				}
+
+				@Override
+				public long drawLong() {
+					if (remaining == 0) {
+						throw new NoSuchElementException();
+					}
+
+					int last = --remaining;
+					int index = random.nextInt(last + 1);
+					long value = array[index];
+					array[index] = array[last];
+					return value;
+				}
+			};
+		}
+
+		/**
+		 * 鍵付きの擬似ランダム置換による、ボックスタイプ（引いた値はなくなる）のロッテリーを作成します。
+		 *
+		 * <p>
+		 * 値を配列に展開しないので、巨大な範囲でも O(1) のメモリしか使用しません。
+		 * </p>
+		 *
+		 * @param key 置換の鍵（同じ鍵であれば同じ順番になります）
+		 * @return 擬似ランダム置換による、ボックスタイプのロッテリー
+		 * @throws IllegalArgumentException 値の数が 2^62 を超える場合
+		 */
+		public PermutationLottery permutation(long key) {
+			return new PermutationLottery(values, from, size, key, 0, size);
+		}
+
+		/**
+		 * 鍵付きの擬似ランダム置換による、ボックスタイプ（引いた値はなくなる）のロッテリーを作成します。
+		 *
+		 * <p>
+		 * 鍵は、指定された乱数の生成方法で決定します。
+		 * </p>
+		 *
+		 * @return 擬似ランダム置換による、ボックスタイプのロッテリー
+		 * @throws IllegalArgumentException 値の数が 2^62 を超える場合
+		 */
+		public PermutationLottery permutation() {
+			return permutation(random.nextLong());
+		}
+
+		/**
+		 * 重み付きのロッテリーを作成します。
+		 *
+		 * <p>
+		 * 作成時に O(n) の準備を行い、以降の選択は O(1) で行います。
+		 * </p>
+		 *
+		 * @param weights 各値の重み（値と同じ順番）
+		 * @return 重み付きのロッテリー
+		 * @throws IllegalArgumentException 重みの数が値の数と異なる場合、重みが負数の場合、または重みの合計が0の場合
+		 */
+		public LongLottery weighted(double... weights) {
+			if (weights.length != size) {
+				throw new IllegalArgumentException("weights: " + weights.length + ", values: " + size);
+			}
+
+			AliasTable table = new AliasTable(weights.clone());
+			Randomizer random = this.random;
+
+			return new LongLottery() {
+
+				@Override
+				public boolean hasNext() {
+					return true;
+				}
+
+				@Override
+				public long drawLong() {
+					return value(table.next(random));
+				}
+			};
+		}
+
+		/**
+		 * 値を取得します。
+		 *
+		 * @param index インデックス
+		 * @return 値
+		 */
+		private long value(long index) {
+			return (values != null) ? values[(int) index] : from + index;
+		}
+
+		/**
+		 * 値を新しい配列にコピーします。
+		 *
+		 * @return 値の配列
+		 * @throws IllegalStateException 値の数が配列に収まらない場合
+		 */
+		private long[] toArray() {
+			if (values != null) {
+				return values.clone();
+			}
+
+			if (size > Integer.MAX_VALUE - 8) {
+				throw new IllegalStateException("size: " + size);
+			}
+
+			long[] array = new long[(int) size];
+
+			for (int i = 0; i < array.length; i++) {
+				array[i] = from + i;
+			}
+
+			return array;
+		}
+	}
+
+	/**
+	 * ロッテリーを作成するビルダーを準備します。
+	 *
+	 * @param values ロッテリーで扱う値
+	 * @return ビルダー
+	 */
+	static Builder build(long... values) {
+		return new Builder(values.clone(), 0, values.length);
+	}
+
+	/**
+	 * 範囲の値を扱う、ロッテリーを作成するビルダーを準備します。
+	 *
+	 * @param from 開始値（この値を含む）
+	 * @param to 終了値（この値を含まない）
+	 * @return ビルダー
+	 * @throws IllegalArgumentException 範囲が不正な場合
+	 */
+	static Builder range(long from, long to) {
+		long size = to - from;
+
+		// 差が long に収まらない場合は、オーバーフローして負数になる
+		if (from > to || size < 0) {
+			throw new IllegalArgumentException("from: " + from + ", to: " + to);
+		}
+
+		return new Builder(null, from, size);
+	}
+}
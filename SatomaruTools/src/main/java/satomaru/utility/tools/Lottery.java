@@ -4,10 +4,11 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToDoubleFunction;
 
 /**
  * 与えられた要素をランダムに選択する為のツールです。
@@ -33,6 +34,9 @@ public interface Lottery<T> {
 		/** ロッテリーで扱う要素。 */
 		private final List<T> values;
 
+		/** 乱数の生成方法。 */
+		private Randomizer random = Randomizer.threadLocal();
+
 		/**
 		 * コンストラクタ。
 		 * 
@@ -51,13 +55,29 @@ public interface Lottery<T> {
 			this.values = new ArrayList<>(values);
 		}
 
+		/**
+		 * 乱数の生成方法を指定します。
+		 * 
+		 * <p>
+		 * 指定しなかった場合は、{@link Randomizer#threadLocal()} を用います。
+		 * 抽選結果を再現したい場合は、{@link Randomizer#seeded(long)} などを指定してください。
+		 * </p>
+		 * 
+		 * @param random 乱数の生成方法
+		 * @return このインスタンス自身
+		 */
+		public Builder<T> random(Randomizer random) {
+			this.random = random;
+			return this;
+		}
+
 		/**
 		 * 標準的なロッテリーを作成します。
 		 * 
 		 * @return 標準的なロッテリー
 		 */
 		public Lottery<T> standard() {
-			Random random = new Random();
+			Randomizer random = this.random;
 			return () -> Optional.of(values.get(random.nextInt(values.size())));
 		}
 
@@ -67,11 +87,193 @@ public interface Lottery<T> {
 		 * @return ボックスタイプ（引いた要素はなくなる）のロッテリー
 		 */
 		public Lottery<T> box() {
-			ArrayList<T> list = new ArrayList<>(values);
-			Collections.shuffle(list);
-			ArrayDeque<T> deque = new ArrayDeque<>(list);
+			Object[] array = values.toArray();
+			Sampling.shuffle(array, random);
+			@SuppressWarnings("unchecked")
+			ArrayDeque<T> deque = new ArrayDeque<>((List<T>) Arrays.asList(array));
 			return () -> Optional.ofNullable(deque.pollLast());
 		}
+
+		/**
+		 * 引く度に少しずつシャッフルする、ボックスタイプ（引いた要素はなくなる）のロッテリーを作成します。
+		 * 
+		 * <p>
+		 * 作成時は要素を配列に1回コピーするだけで、シャッフルは引く度に Fisher–Yates の1ステップずつ行います。
+		 * 大量の要素から少しだけ引く場合は、{@link #box()} よりも高速です。
+		 * </p>
+		 * 
+		 * @return 引く度に少しずつシャッフルする、ボックスタイプのロッテリー
+		 */
+		public Lottery<T> lazyBox() {
+			return new LazyBoxLottery<>(values.toArray(), random);
+		}
+
+		/**
+		 * 複数のスレッドから同時に引くことができる、ボックスタイプ（引いた要素はなくなる）のロッテリーを作成します。
+		 * 
+		 * <p>
+		 * シャッフル済の配列をアトミックなカーソルで払い出すので、ロックを取らずに、各要素をちょうど1回ずつ返却します。
+		 * </p>
+		 * 
+		 * @return 複数のスレッドから同時に引くことができる、ボックスタイプのロッテリー
+		 */
+		public Lottery<T> concurrentBox() {
+			Object[] array = values.toArray();
+			Sampling.shuffle(array, random);
+			return cursorBox(array);
+		}
+
+		/**
+		 * 並列にシャッフルする、ボックスタイプ（引いた要素はなくなる）のロッテリーを作成します。
+		 * 
+		 * <p>
+		 * 要素が非常に多い場合に、作成時のシャッフルを Fork/Join で複数のコアに分担させます。
+		 * 作成されたロッテリーは、{@link #concurrentBox()} と同様に複数のスレッドから同時に引くことができます。
+		 * </p>
+		 * 
+		 * @return 並列にシャッフルする、ボックスタイプのロッテリー
+		 */
+		public Lottery<T> parallelBox() {
+			Object[] array = values.toArray();
+			ParallelShuffle.shuffle(array, random);
+			return cursorBox(array);
+		}
+
+		/**
+		 * シャッフル済の配列を、アトミックなカーソルで払い出すロッテリーを作成します。
+		 * 
+		 * @param array シャッフル済の配列
+		 * @return ロッテリー
+		 */
+		private Lottery<T> cursorBox(Object[] array) {
+			AtomicInteger cursor = new AtomicInteger();
+
+			return () -> {
+				// 空になった後にカーソルが増え続けないよう、先に確認する
+				if (cursor.get() >= array.length) {
+					return Optional.empty();
+				}
+
+				int index = cursor.getAndIncrement();
+
+				if (index >= array.length) {
+					return Optional.empty();
+				}
+
+				@SuppressWarnings("unchecked")
+				T value = (T) array[index];
+				array[index] = null;
+				return Optional.ofNullable(value);
+			};
+		}
+
+		/**
+		 * 重複のない要素を、まとめてランダムに選択します。
+		 * 
+		 * <p>
+		 * ボックスタイプのロッテリーを作成して k 回引くのと同じ結果になりますが、
+		 * k が要素の数に比べて小さい場合は、O(k) のメモリしか使用しません。
+		 * </p>
+		 * 
+		 * @param k 選択する数（要素の数を超える場合は、全ての要素をランダムな順番で返却します）
+		 * @return 選択された要素
+		 * @throws IllegalArgumentException 選択する数が負数の場合
+		 */
+		public List<T> drawMany(int k) {
+			if (k < 0) {
+				throw new IllegalArgumentException("k: " + k);
+			}
+
+			int[] indexes = Sampling.indexes(values.size(), Math.min(k, values.size()), random);
+			ArrayList<T> result = new ArrayList<>(indexes.length);
+
+			for (int index : indexes) {
+				result.add(values.get(index));
+			}
+
+			return result;
+		}
+
+		/**
+		 * 重み付きのロッテリーを作成します。
+		 * 
+		 * <p>
+		 * 作成時に O(n) の準備を行い、以降の選択は O(1) で行います。
+		 * </p>
+		 * 
+		 * @param weights 各要素の重み（要素と同じ順番）
+		 * @return 重み付きのロッテリー
+		 * @throws IllegalArgumentException 重みの数が要素の数と異なる場合、重みが負数の場合、または重みの合計が0の場合
+		 */
+		public Lottery<T> weighted(double... weights) {
+			if (weights.length != values.size()) {
+				throw new IllegalArgumentException("weights: " + weights.length + ", values: " + values.size());
+			}
+
+			AliasTable table = new AliasTable(weights.clone());
+			Randomizer random = this.random;
+			return () -> Optional.of(values.get(table.next(random)));
+		}
+
+		/**
+		 * 重み付きのロッテリーを作成します。
+		 * 
+		 * <p>
+		 * 作成時に O(n) の準備を行い、以降の選択は O(1) で行います。
+		 * </p>
+		 * 
+		 * @param weight 要素から重みを取得する関数
+		 * @return 重み付きのロッテリー
+		 * @throws IllegalArgumentException 重みが負数の場合、または重みの合計が0の場合
+		 */
+		public Lottery<T> weighted(ToDoubleFunction<? super T> weight) {
+			return weighted(values.stream().mapToDouble(weight).toArray());
+		}
+
+		/**
+		 * 重み付きのロッテリーを作成します。
+		 * 
+		 * <p>
+		 * 列挙型のロッテリーでは、EnumMap で重みを指定できます。
+		 * マップに存在しない要素の重みは0になります。
+		 * </p>
+		 * 
+		 * @param weights 要素をキーとした重み
+		 * @return 重み付きのロッテリー
+		 * @throws IllegalArgumentException 重みが負数の場合、または重みの合計が0の場合
+		 */
+		public Lottery<T> weighted(Map<? super T, ? extends Number> weights) {
+			return weighted(t -> {
+				Number weight = weights.get(t);
+				return (weight != null) ? weight.doubleValue() : 0;
+			});
+		}
+
+		/**
+		 * 重みを後から変更できる、重み付きのロッテリーを作成します。
+		 * 
+		 * @param weights 各要素の重み（要素と同じ順番）
+		 * @return 重みを後から変更できる、重み付きのロッテリー
+		 * @throws IllegalArgumentException 重みの数が要素の数と異なる場合、重みが負数の場合、または要素が重複している場合
+		 */
+		public DynamicLottery<T> dynamic(double... weights) {
+			if (weights.length != values.size()) {
+				throw new IllegalArgumentException("weights: " + weights.length + ", values: " + values.size());
+			}
+
+			return new DynamicLottery<>(values, weights, random);
+		}
+
+		/**
+		 * 重みを後から変更できる、重み付きのロッテリーを作成します。
+		 * 
+		 * @param weight 要素から重みを取得する関数
+		 * @return 重みを後から変更できる、重み付きのロッテリー
+		 * @throws IllegalArgumentException 重みが負数の場合、または要素が重複している場合
+		 */
+		public DynamicLottery<T> dynamic(ToDoubleFunction<? super T> weight) {
+			return dynamic(values.stream().mapToDouble(weight).toArray());
+		}
 	}
 
 	/**
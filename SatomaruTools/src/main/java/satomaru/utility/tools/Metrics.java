@@ -0,0 +1,505 @@
+package satomaru.utility.tools;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import satomaru.utility.tools.Result.Processor;
+
+/**
+ * 処理の段階（ステージ）ごとの、件数・例外・処理時間を記録します。
+ *
+ * <p>
+ * {@link #create()} で作成したインスタンスは記録を行い、{@link #disabled()} で取得したインスタンスは何も記録しません。
+ * 記録しないステージは {@link Stage#isEnabled()} がfalseになるので、
+ * 呼び出し側は計測そのものを省略でき、ほとんど負荷がかかりません。
+ * </p>
+ *
+ * <p>
+ * このクラスはスレッドセーフです。記録はロックを用いずに行います。
+ * </p>
+ */
+public final class Metrics {
+
+	/** 何も記録しないインスタンス。 */
+	private static final Metrics DISABLED = new Metrics(false);
+
+	/** 何も記録しないステージ。 */
+	private static final Stage DISABLED_STAGE = new Stage("disabled", false);
+
+	/**
+	 * 記録を行うインスタンスを作成します。
+	 *
+	 * @return 記録を行うインスタンス
+	 */
+	public static Metrics create() {
+		return new Metrics(true);
+	}
+
+	/**
+	 * 何も記録しないインスタンスを取得します。
+	 *
+	 * @return 何も記録しないインスタンス
+	 */
+	public static Metrics disabled() {
+		return DISABLED;
+	}
+
+	/**
+	 * 処理時間のヒストグラムです。
+	 *
+	 * <p>
+	 * HdrHistogram と同様に、2の冪ごとの区間をさらに32等分した対数線形のバケットで数えます。
+	 * 相対誤差は約3%です。
+	 * </p>
+	 */
+	static final class Histogram {
+
+		/** 2の冪ごとの区間を分割するビット数。 */
+		static final int SUB_BITS = 5;
+
+		/** 2の冪ごとの区間の分割数。 */
+		static final int SUB_COUNT = 1 << SUB_BITS;
+
+		/** バケットの数。 */
+		static final int BUCKETS = SUB_COUNT + (63 - SUB_BITS) * SUB_COUNT;
+
+		private Histogram() {
+		}
+
+		/**
+		 * 値が属するバケットを取得します。
+		 *
+		 * @param value 値（0以上）
+		 * @return バケットの位置
+		 */
+		static int bucket(long value) {
+			if (value < SUB_COUNT) {
+				return (int) value;
+			}
+
+			int exponent = 63 - Long.numberOfLeadingZeros(value);
+			int shift = exponent - SUB_BITS;
+			return SUB_COUNT + shift * SUB_COUNT + (int) ((value >>> shift) - SUB_COUNT);
+		}
+
+		/**
+		 * バケットに属する最大の値を取得します。
+		 *
+		 * @param bucket バケットの位置
+		 * @return バケットに属する最大の値
+		 */
+		static long highest(int bucket) {
+			if (bucket < SUB_COUNT) {
+				return bucket;
+			}
+
+			int shift = (bucket - SUB_COUNT) / SUB_COUNT;
+			long sub = SUB_COUNT + (bucket - SUB_COUNT) % SUB_COUNT;
+			return (sub << shift) + (1L << shift) - 1;
+		}
+	}
+
+	/**
+	 * 処理のステージです。
+	 */
+	public static final class Stage {
+
+		/** ステージの名前。 */
+		private final String name;
+
+		/** 記録を行う場合はtrue。 */
+		private final boolean enabled;
+
+		/** 例外が発生しなかった件数。 */
+		private final LongAdder ok = new LongAdder();
+
+		/** 前段で例外が発生していた為、処理しなかった件数。 */
+		private final LongAdder skipped = new LongAdder();
+
+		/** 例外の種類ごとの件数。 */
+		private final ConcurrentHashMap<Class<?>, LongAdder> errors = new ConcurrentHashMap<>();
+
+		/** 処理時間の合計（ナノ秒）。 */
+		private final LongAdder totalNanos = new LongAdder();
+
+		/** 処理時間の最大値（ナノ秒）。 */
+		private final AtomicLong maxNanos = new AtomicLong();
+
+		/** 処理時間のヒストグラム。 */
+		private final AtomicLongArray histogram;
+
+		/**
+		 * コンストラクタ。
+		 *
+		 * @param name ステージの名前
+		 * @param enabled 記録を行う場合はtrue
+		 */
+		private Stage(String name, boolean enabled) {
+			this.name = name;
+			this.enabled = enabled;
+			this.histogram = enabled ? new AtomicLongArray(Histogram.BUCKETS) : null;
+		}
+
+		/**
+		 * ステージの名前を取得します。
+		 *
+		 * @return ステージの名前
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * 記録を行うことを判定します。
+		 *
+		 * @return 記録を行う場合はtrue
+		 */
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		/**
+		 * リザルトの処理結果をさらに処理し、その結果と処理時間を記録します。
+		 *
+		 * <p>
+		 * {@link Result#process(Processor)} と同じですが、例外が発生していたリザルトは処理せずに、件数だけを記録します。
+		 * 記録を行わないステージでは、何も記録しません。
+		 * </p>
+		 *
+		 * @param result リザルト
+		 * @param processor 処理結果をさらに処理する関数
+		 * @return 処理した後のリザルト
+		 */
+		public <T, R> Result<R> process(Result<T> result, Processor<? super T, ? extends R> processor) {
+			if (!enabled) {
+				return result.process(processor);
+			}
+
+			if (result.isNg()) {
+				skipped.increment();
+				return result.process(processor);
+			}
+
+			long start = System.nanoTime();
+			Result<R> processed = Result.of(result.value().get(), processor);
+			record(System.nanoTime() - start, processed);
+			return processed;
+		}
+
+		/**
+		 * 処理結果と処理時間を記録します。
+		 *
+		 * @param nanos 処理時間（ナノ秒）
+		 * @param result 処理結果
+		 */
+		public void record(long nanos, Result<?> result) {
+			if (!enabled) {
+				return;
+			}
+
+			if (result.isOk()) {
+				ok.increment();
+			} else {
+				Class<?> type = result.exception().get().getClass();
+				LongAdder counter = errors.get(type);
+
+				if (counter == null) {
+					counter = errors.computeIfAbsent(type, k -> new LongAdder());
+				}
+
+				counter.increment();
+			}
+
+			long value = Math.max(nanos, 0);
+			histogram.incrementAndGet(Histogram.bucket(value));
+			totalNanos.add(value);
+
+			for (long max = maxNanos.get(); value > max; max = maxNanos.get()) {
+				if (maxNanos.compareAndSet(max, value)) {
+					break;
+				}
+			}
+		}
+
+		/**
+		 * 現在の記録を取得します。
+		 *
+		 * <p>
+		 * 記録中に取得した場合、各項目の値は厳密には同時点のものではありません。
+		 * </p>
+		 *
+		 * @return 現在の記録
+		 */
+		public Snapshot snapshot() {
+			Map<String, Long> errorCounts = new LinkedHashMap<>();
+			errors.forEach((type, counter) -> errorCounts.put(type.getName(), counter.sum()));
+
+			long[] buckets = new long[enabled ? Histogram.BUCKETS : 0];
+
+			for (int i = 0; i < buckets.length; i++) {
+				buckets[i] = histogram.get(i);
+			}
+
+			return new Snapshot(name, ok.sum(), skipped.sum(), errorCounts, totalNanos.sum(), maxNanos.get(), buckets);
+		}
+	}
+
+	/**
+	 * ステージの記録です。
+	 *
+	 * <p>
+	 * 記録を取得した時点の値を保持する、不変のオブジェクトです。
+	 * </p>
+	 */
+	public static final class Snapshot {
+
+		/** ステージの名前。 */
+		private final String name;
+
+		/** 例外が発生しなかった件数。 */
+		private final long okCount;
+
+		/** 前段で例外が発生していた為、処理しなかった件数。 */
+		private final long skippedCount;
+
+		/** 例外の種類（クラス名）ごとの件数。 */
+		private final Map<String, Long> errorCounts;
+
+		/** 例外が発生した件数。 */
+		private final long ngCount;
+
+		/** 処理時間の合計（ナノ秒）。 */
+		private final long totalNanos;
+
+		/** 処理時間の最大値（ナノ秒）。 */
+		private final long maxNanos;
+
+		/** 処理時間のヒストグラム。 */
+		private final long[] buckets;
+
+		/**
+		 * コンストラクタ。
+		 *
+		 * @param name ステージの名前
+		 * @param okCount 例外が発生しなかった件数
+		 * @param skippedCount 処理しなかった件数
+		 * @param errorCounts 例外の種類ごとの件数
+		 * @param totalNanos 処理時間の合計
+		 * @param maxNanos 処理時間の最大値
+		 * @param buckets 処理時間のヒストグラム
+		 */
+		private Snapshot(
+				String name,
+				long okCount,
+				long skippedCount,
+				Map<String, Long> errorCounts,
+				long totalNanos,
+				long maxNanos,
+				long[] buckets) {
+
+			this.name = name;
+			this.okCount = okCount;
+			this.skippedCount = skippedCount;
+			this.errorCounts = Collections.unmodifiableMap(errorCounts);
+			this.ngCount = errorCounts.values().stream().mapToLong(Long::longValue).sum();
+			this.totalNanos = totalNanos;
+			this.maxNanos = maxNanos;
+			this.buckets = buckets;
+		}
+
+		/**
+		 * ステージの名前を取得します。
+		 *
+		 * @return ステージの名前
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * 処理した件数を取得します。
+		 *
+		 * @return 処理した件数（例外が発生しなかった件数と、発生した件数の合計）
+		 */
+		public long getCount() {
+			return okCount + ngCount;
+		}
+
+		/**
+		 * 例外が発生しなかった件数を取得します。
+		 *
+		 * @return 例外が発生しなかった件数
+		 */
+		public long getOkCount() {
+			return okCount;
+		}
+
+		/**
+		 * 例外が発生した件数を取得します。
+		 *
+		 * @return 例外が発生した件数
+		 */
+		public long getNgCount() {
+			return ngCount;
+		}
+
+		/**
+		 * 前段で例外が発生していた為、処理しなかった件数を取得します。
+		 *
+		 * @return 処理しなかった件数
+		 */
+		public long getSkippedCount() {
+			return skippedCount;
+		}
+
+		/**
+		 * 例外の種類ごとの件数を取得します。
+		 *
+		 * @return 例外のクラス名をキーとした、件数のマップ
+		 */
+		public Map<String, Long> getErrorCounts() {
+			return errorCounts;
+		}
+
+		/**
+		 * 処理時間の平均値を取得します。
+		 *
+		 * @return 処理時間の平均値（ナノ秒、処理していない場合は0）
+		 */
+		public double getMeanNanos() {
+			long count = getCount();
+			return (count == 0) ? 0 : (double) totalNanos / count;
+		}
+
+		/**
+		 * 処理時間の最大値を取得します。
+		 *
+		 * @return 処理時間の最大値（ナノ秒）
+		 */
+		public long getMaxNanos() {
+			return maxNanos;
+		}
+
+		/**
+		 * 処理時間のパーセンタイル値を取得します。
+		 *
+		 * <p>
+		 * 値はバケットの上限で、相対誤差は約3%です。
+		 * </p>
+		 *
+		 * @param percentile パーセンタイル（0より大きく100以下）
+		 * @return 処理時間のパーセンタイル値（ナノ秒、処理していない場合は0）
+		 * @throws IllegalArgumentException パーセンタイルが範囲外の場合
+		 */
+		public long getPercentileNanos(double percentile) {
+			if (!(percentile > 0 && percentile <= 100)) {
+				throw new IllegalArgumentException("percentile: " + percentile);
+			}
+
+			long total = 0;
+
+			for (long count : buckets) {
+				total += count;
+			}
+
+			long rank = (long) Math.ceil(total * percentile / 100);
+			long seen = 0;
+
+			for (int i = 0; i < buckets.length; i++) {
+				seen += buckets[i];
+
+				if (seen >= rank && seen > 0) {
+					return Math.min(Histogram.highest(i), maxNanos);
+				}
+			}
+
+			return 0;
+		}
+
+		/**
+		 * 文字列表現を取得します。
+		 *
+		 * @return 文字列表現
+		 */
+		@Override
+		public String toString() {
+			return String.format(
+					"%s{count=%d, ok=%d, ng=%d, skipped=%d, errors=%s, mean=%.0fns, p50=%dns, p99=%dns, max=%dns}",
+					name,
+					getCount(),
+					okCount,
+					ngCount,
+					skippedCount,
+					errorCounts,
+					getMeanNanos(),
+					getCount() > 0 ? getPercentileNanos(50) : 0,
+					getCount() > 0 ? getPercentileNanos(99) : 0,
+					maxNanos);
+		}
+	}
+
+	/** 記録を行う場合はtrue。 */
+	private final boolean enabled;
+
+	/** ステージ（作成順）。 */
+	private final Map<String, Stage> stages = new LinkedHashMap<>();
+
+	/**
+	 * コンストラクタ。
+	 *
+	 * @param enabled 記録を行う場合はtrue
+	 */
+	private Metrics(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	/**
+	 * 記録を行うことを判定します。
+	 *
+	 * @return 記録を行う場合はtrue
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * 名前を指定して、ステージを取得します。
+	 *
+	 * <p>
+	 * 同じ名前のステージが既にある場合は、そのステージを返却します。
+	 * 記録を行わないインスタンスでは、名前に関係なく、共有の何も記録しないステージを返却します。
+	 * </p>
+	 *
+	 * @param name ステージの名前
+	 * @return ステージ
+	 */
+	public Stage stage(String name) {
+		if (!enabled) {
+			return DISABLED_STAGE;
+		}
+
+		synchronized (stages) {
+			return stages.computeIfAbsent(name, k -> new Stage(k, true));
+		}
+	}
+
+	/**
+	 * 全てのステージの、現在の記録を取得します。
+	 *
+	 * @return ステージの名前をキーとした、記録のマップ（ステージの作成順）
+	 */
+	public Map<String, Snapshot> snapshot() {
+		Map<String, Snapshot> snapshots = new LinkedHashMap<>();
+
+		synchronized (stages) {
+			stages.forEach((name, stage) -> snapshots.put(name, stage.snapshot()));
+		}
+
+		return snapshots;
+	}
+}
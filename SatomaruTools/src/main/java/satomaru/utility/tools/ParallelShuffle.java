@@ -0,0 +1,151 @@
+package satomaru.utility.tools;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fork/Join による並列シャッフル（MergeShuffle）です。
+ *
+ * <p>
+ * 配列を分割してそれぞれを並列にシャッフルし、ランダムなビットで選びながらマージします。
+ * マージ後も一様ランダムな並びになります。
+ * </p>
+ */
+final class ParallelShuffle {
+
+	/** これ以下の要素数は、分割せずに Fisher–Yates でシャッフルします。 */
+	static final int THRESHOLD = 1 << 16;
+
+	private ParallelShuffle() {
+	}
+
+	/**
+	 * 配列を並列にシャッフルします。
+	 *
+	 * @param array 配列
+	 * @param random 乱数の生成方法（シードの決定にのみ用います）
+	 */
+	static void shuffle(Object[] array, Randomizer random) {
+		shuffle(array, random, THRESHOLD);
+	}
+
+	/**
+	 * 配列を並列にシャッフルします。
+	 *
+	 * @param array 配列
+	 * @param random 乱数の生成方法（シードの決定にのみ用います）
+	 * @param threshold 分割せずにシャッフルする要素数
+	 */
+	static void shuffle(Object[] array, Randomizer random, int threshold) {
+		ShuffleTask task = new ShuffleTask(array, 0, array.length, new SplittableRandom(random.nextLong()), threshold);
+
+		if (array.length <= threshold) {
+			task.compute();
+		} else {
+			ForkJoinPool.commonPool().invoke(task);
+		}
+	}
+
+	/**
+	 * 配列の一部をシャッフルするタスクです。
+	 */
+	private static final class ShuffleTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		/** 配列。 */
+		private final Object[] array;
+
+		/** 開始位置（この位置を含む）。 */
+		private final int start;
+
+		/** 終了位置（この位置を含まない）。 */
+		private final int end;
+
+		/** 乱数生成器。 */
+		private final SplittableRandom random;
+
+		/** 分割せずにシャッフルする要素数。 */
+		private final int threshold;
+
+		/**
+		 * コンストラクタ。
+		 *
+		 * @param array 配列
+		 * @param start 開始位置（この位置を含む）
+		 * @param end 終了位置（この位置を含まない）
+		 * @param random 乱数生成器
+		 * @param threshold 分割せずにシャッフルする要素数
+		 */
+		ShuffleTask(Object[] array, int start, int end, SplittableRandom random, int threshold) {
+			this.array = array;
+			this.start = start;
+			this.end = end;
+			this.random = random;
+			this.threshold = threshold;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected void compute() {
+			if (end - start <= threshold) {
+				for (int i = end - 1; i > start; i--) {
+					swap(i, start + random.nextInt(i - start + 1));
+				}
+
+				return;
+			}
+
+			int mid = (start + end) >>> 1;
+			invokeAll(
+					new ShuffleTask(array, start, mid, random.split(), threshold),
+					new ShuffleTask(array, mid, end, random.split(), threshold));
+			merge(mid);
+		}
+
+		/**
+		 * シャッフル済の前半と後半を、一様ランダムになるようにマージします。
+		 *
+		 * @param mid 後半の開始位置
+		 */
+		private void merge(int mid) {
+			int i = start;
+			int j = mid;
+
+			// ランダムなビットで、前半・後半のどちらの要素を置くかを選ぶ
+			while (true) {
+				if (random.nextBoolean()) {
+					if (j == end) {
+						break;
+					}
+
+					swap(i, j++);
+				} else if (i == j) {
+					break;
+				}
+
+				i++;
+			}
+
+			// 片方が尽きたら、残りの要素はランダムな位置に挿入する
+			for (; i < end; i++) {
+				swap(i, start + random.nextInt(i - start + 1));
+			}
+		}
+
+		/**
+		 * 要素を交換します。
+		 *
+		 * @param i 1つ目の位置
+		 * @param j 2つ目の位置
+		 */
+		private void swap(int i, int j) {
+			Object temp = array[i];
+			array[i] = array[j];
+			array[j] = temp;
+		}
+	}
+}
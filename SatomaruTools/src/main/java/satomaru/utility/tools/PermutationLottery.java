@@ -0,0 +1,227 @@
+package satomaru.utility.tools;
+
+import java.util.NoSuchElementException;
+
+/**
+ * 鍵付きの擬似ランダム置換によって、各値をちょうど1回ずつランダムな順番で返却する、ボックスタイプのロッテリーです。
+ *
+ * <p>
+ * 位置 0, 1, 2, ... を Feistel ネットワーク（範囲外はサイクルウォーキング）で並べ替えて値を選ぶので、
+ * 範囲の大きさに関わらず O(1) のメモリしか使用しません。
+ * 同じ鍵であれば同じ順番になるので、{@link #position()} を保存しておけば {@link #slice(long, long)} で再開でき、
+ * {@link #shard(int, int)} で複数のワーカーに重複なく分担させることもできます。
+ * </p>
+ *
+ * <p>
+ * このクラスはスレッドセーフではありません。スレッドごとにシャードを作成してください。
+ * </p>
+ */
+public final class PermutationLottery implements LongLottery {
+
+	/** Feistel ネットワークのラウンド数。 */
+	private static final int ROUNDS = 6;
+
+	/** 扱える値の数の上限。 */
+	static final long MAX_SIZE = 1L << 62;
+
+	/** ロッテリーで扱う値（範囲の場合はnull）。 */
+	private final long[] values;
+
+	/** 範囲の開始値。 */
+	private final long from;
+
+	/** 値の数。 */
+	private final long size;
+
+	/** 置換の鍵。 */
+	private final long key;
+
+	/** 各ラウンドの鍵。 */
+	private final long[] roundKeys;
+
+	/** Feistel ネットワークの片側のビット数。 */
+	private final int halfBits;
+
+	/** 片側のビットマスク。 */
+	private final long halfMask;
+
+	/** 次に返却する位置。 */
+	private long position;
+
+	/** このロッテリーが担当する位置の終端（この位置を含まない）。 */
+	private final long end;
+
+	/**
+	 * コンストラクタ。
+	 *
+	 * @param values ロッテリーで扱う値（範囲の場合はnull）
+	 * @param from 範囲の開始値
+	 * @param size 値の数
+	 * @param key 置換の鍵
+	 * @param position 担当する位置の開始（この位置を含む）
+	 * @param end 担当する位置の終端（この位置を含まない）
+	 */
+	PermutationLottery(long[] values, long from, long size, long key, long position, long end) {
+		if (size > MAX_SIZE) {
+			throw new IllegalArgumentException("size: " + size);
+		}
+
+		if (position < 0 || position > end || end > size) {
+			throw new IllegalArgumentException("position: " + position + ", end: " + end + ", size: " + size);
+		}
+
+		this.values = values;
+		this.from = from;
+		this.size = size;
+		this.key = key;
+		this.position = position;
+		this.end = end;
+
+		int bits = (size > 1) ? 64 - Long.numberOfLeadingZeros(size - 1) : 1;
+		this.halfBits = (bits + 1) / 2;
+		this.halfMask = (1L << halfBits) - 1;
+		this.roundKeys = new long[ROUNDS];
+
+		long state = key;
+
+		for (int i = 0; i < ROUNDS; i++) {
+			state += 0x9E3779B97F4A7C15L;
+			roundKeys[i] = mix(state);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean hasNext() {
+		return position < end;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long drawLong() {
+		if (position >= end) {
+			throw new NoSuchElementException();
+		}
+
+		long index = permute(position++);
+		return (values != null) ? values[(int) index] : from + index;
+	}
+
+	/**
+	 * 次に返却する位置を取得します。
+	 *
+	 * @return 次に返却する位置
+	 */
+	public long position() {
+		return position;
+	}
+
+	/**
+	 * 残りの値の数を取得します。
+	 *
+	 * @return 残りの値の数
+	 */
+	public long remaining() {
+		return end - position;
+	}
+
+	/**
+	 * 同じ置換のうち、指定された位置の範囲だけを返却するロッテリーを作成します。
+	 *
+	 * <p>
+	 * 保存しておいた {@link #position()} から再開する場合にも用います。
+	 * </p>
+	 *
+	 * @param start 位置の開始（この位置を含む）
+	 * @param end 位置の終端（この位置を含まない）
+	 * @return 新しいロッテリー
+	 * @throws IllegalArgumentException 位置が範囲外の場合
+	 */
+	public PermutationLottery slice(long start, long end) {
+		return new PermutationLottery(values, from, size, key, start, end);
+	}
+
+	/**
+	 * 同じ置換を、指定された数のシャードに分割したうちの1つを作成します。
+	 *
+	 * <p>
+	 * 各シャードは互いに重複せず、全てのシャードを合わせると全ての値をちょうど1回ずつ返却します。
+	 * </p>
+	 *
+	 * @param index シャードの番号（0オリジン）
+	 * @param count シャードの数
+	 * @return シャード
+	 * @throws IllegalArgumentException シャードの番号または数が不正な場合
+	 */
+	public PermutationLottery shard(int index, int count) {
+		if (count <= 0 || index < 0 || index >= count) {
+			throw new IllegalArgumentException("index: " + index + ", count: " + count);
+		}
+
+		return slice(boundary(index, count), boundary(index + 1, count));
+	}
+
+	/**
+	 * シャードの境界となる位置を計算します。
+	 *
+	 * @param index シャードの番号
+	 * @param count シャードの数
+	 * @return 境界となる位置
+	 */
+	private long boundary(int index, int count) {
+		return (size / count) * index + Math.min(size % count, index);
+	}
+
+	/**
+	 * 位置を置換します。
+	 *
+	 * @param position 位置
+	 * @return 置換後の位置
+	 */
+	long permute(long position) {
+		long result = position;
+
+		// 2のべき乗の範囲で置換し、範囲外になった場合は範囲内に戻るまで置換を繰り返す
+		do {
+			result = feistel(result);
+		} while (result >= size);
+
+		return result;
+	}
+
+	/**
+	 * Feistel ネットワークによって置換します。
+	 *
+	 * @param value 値
+	 * @return 置換後の値
+	 */
+	private long feistel(long value) {
+		long left = value >>> halfBits;
+		long right = value & halfMask;
+
+		for (long roundKey : roundKeys) {
+			long next = left ^ (mix(right ^ roundKey) & halfMask);
+			left = right;
+			right = next;
+		}
+
+		return (left << halfBits) | right;
+	}
+
+	/**
+	 * 64ビットの値を攪拌します（SplitMix64 の最終処理）。
+	 *
+	 * @param value 値
+	 * @return 攪拌された値
+	 */
+	private static long mix(long value) {
+		long z = value;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
@@ -0,0 +1,191 @@
+package satomaru.utility.tools;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * ロッテリーで用いる乱数の生成方法です。
+ */
+public interface Randomizer {
+
+	/**
+	 * 0以上、指定された値未満の乱数を取得します。
+	 *
+	 * @param bound 上限（この値を含まない）
+	 * @return 乱数
+	 */
+	int nextInt(int bound);
+
+	/**
+	 * 0以上1未満の乱数を取得します。
+	 *
+	 * @return 乱数
+	 */
+	double nextDouble();
+
+	/**
+	 * long の範囲の乱数を取得します。
+	 *
+	 * @return 乱数
+	 */
+	long nextLong();
+
+	/**
+	 * 0以上、指定された値未満の乱数を取得します。
+	 *
+	 * @param bound 上限（この値を含まない）
+	 * @return 乱数
+	 * @throws IllegalArgumentException 上限が正数でない場合
+	 */
+	default long nextLong(long bound) {
+		if (bound <= 0) {
+			throw new IllegalArgumentException("bound: " + bound);
+		}
+
+		long mask = bound - 1;
+		long r = nextLong();
+
+		if ((bound & mask) == 0) {
+			return r & mask;
+		}
+
+		// 偏りが出ないよう、端数の範囲に入った場合は引き直す
+		for (long u = r >>> 1; u + mask - (r = u % bound) < 0; u = nextLong() >>> 1) {
+		}
+
+		return r;
+	}
+
+	/**
+	 * java.util.Random による乱数の生成方法を作成します。
+	 *
+	 * <p>
+	 * java.util.Random はスレッドセーフですが、複数のスレッドから同時に使用すると、
+	 * 内部のシードの更新で競合します。
+	 * </p>
+	 *
+	 * @param random 乱数生成器
+	 * @return 乱数の生成方法
+	 */
+	static Randomizer of(Random random) {
+		return new Randomizer() {
+
+			@Override
+			public int nextInt(int bound) {
+				return random.nextInt(bound);
+			}
+
+			@Override
+			public double nextDouble() {
+				return random.nextDouble();
+			}
+
+			@Override
+			public long nextLong() {
+				return random.nextLong();
+			}
+		};
+	}
+
+	/**
+	 * ThreadLocalRandom による乱数の生成方法を取得します。
+	 *
+	 * <p>
+	 * スレッドごとに独立した乱数生成器を用いるので、複数のスレッドから同時に使用しても競合しません。
+	 * シードは指定できません。
+	 * </p>
+	 *
+	 * @return 乱数の生成方法
+	 */
+	static Randomizer threadLocal() {
+		return new Randomizer() {
+
+			@Override
+			public int nextInt(int bound) {
+				return ThreadLocalRandom.current().nextInt(bound);
+			}
+
+			@Override
+			public double nextDouble() {
+				return ThreadLocalRandom.current().nextDouble();
+			}
+
+			@Override
+			public long nextLong() {
+				return ThreadLocalRandom.current().nextLong();
+			}
+		};
+	}
+
+	/**
+	 * SplittableRandom をスレッドごとに分割する、乱数の生成方法を作成します。
+	 *
+	 * <p>
+	 * 各スレッドは、最初に使用した時に、指定されたシードの SplittableRandom から分割したものを用います。
+	 * スレッドが最初に使用する順番が同じであれば、同じ乱数列が再現されます。
+	 * </p>
+	 *
+	 * @param seed シード
+	 * @return 乱数の生成方法
+	 */
+	static Randomizer splittable(long seed) {
+		SplittableRandom root = new SplittableRandom(seed);
+		ThreadLocal<SplittableRandom> local = ThreadLocal.withInitial(() -> {
+			synchronized (root) {
+				return root.split();
+			}
+		});
+
+		return new Randomizer() {
+
+			@Override
+			public int nextInt(int bound) {
+				return local.get().nextInt(bound);
+			}
+
+			@Override
+			public double nextDouble() {
+				return local.get().nextDouble();
+			}
+
+			@Override
+			public long nextLong() {
+				return local.get().nextLong();
+			}
+		};
+	}
+
+	/**
+	 * シードを固定した、乱数の生成方法を作成します。
+	 *
+	 * <p>
+	 * 同じシードからは同じ乱数列が生成されるので、抽選結果を再現できます。
+	 * スレッドセーフではないので、1つのスレッドから使用してください。
+	 * </p>
+	 *
+	 * @param seed シード
+	 * @return 乱数の生成方法
+	 */
+	static Randomizer seeded(long seed) {
+		SplittableRandom random = new SplittableRandom(seed);
+
+		return new Randomizer() {
+
+			@Override
+			public int nextInt(int bound) {
+				return random.nextInt(bound);
+			}
+
+			@Override
+			public double nextDouble() {
+				return random.nextDouble();
+			}
+
+			@Override
+			public long nextLong() {
+				return random.nextLong();
+			}
+		};
+	}
+}
@@ -0,0 +1,275 @@
+package satomaru.utility.tools;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+/**
+ * 要素数の分からない（メモリに乗りきらない）要素の列から、決まった数の要素をランダムに選択するリザーバーです。
+ *
+ * <p>
+ * Algorithm L により、リザーバーが満杯になった後は、置き換える要素まで読み飛ばす数を計算するので、
+ * 要素ごとに乱数を生成することはありません。
+ * </p>
+ *
+ * <p>
+ * このクラスはスレッドセーフではありません。
+ * 並列処理する場合は、部分ごとのリザーバーを {@link #merge(Reservoir)} で統合してください。
+ * </p>
+ *
+ * @param <T> 要素
+ */
+public final class Reservoir<T> {
+
+	/**
+	 * 要素の列から、決まった数の要素をランダムに選択します。
+	 *
+	 * @param iterator 要素の列
+	 * @param size 選択する数
+	 * @return 選択された要素
+	 */
+	public static <T> List<T> sample(Iterator<? extends T> iterator, int size) {
+		Reservoir<T> reservoir = new Reservoir<>(size);
+		iterator.forEachRemaining(reservoir::add);
+		return reservoir.values();
+	}
+
+	/**
+	 * Stream から、決まった数の要素をランダムに選択します。
+	 *
+	 * <p>
+	 * 並列 Stream の場合は、部分ごとのリザーバーを統合します。
+	 * </p>
+	 *
+	 * @param stream Stream
+	 * @param size 選択する数
+	 * @return 選択された要素
+	 */
+	public static <T> List<T> sample(Stream<? extends T> stream, int size) {
+		return stream.collect(collector(size));
+	}
+
+	/**
+	 * 決まった数の要素をランダムに選択するコレクターを作成します。
+	 *
+	 * @param size 選択する数
+	 * @return コレクター
+	 */
+	public static <T> Collector<T, ?, List<T>> collector(int size) {
+		return Collector.of(
+				() -> new Reservoir<T>(size),
+				Reservoir::add,
+				Reservoir::merge,
+				Reservoir::values,
+				Collector.Characteristics.UNORDERED);
+	}
+
+	/** 選択された要素。 */
+	private Object[] items;
+
+	/** これまでに追加された要素の数。 */
+	private long count;
+
+	/** 次に置き換えを行う要素の番号（0オリジン）。 */
+	private long next;
+
+	/** Algorithm L の W。 */
+	private double w;
+
+	/** 統合された後の場合はtrue（Algorithm L の状態を持たないので、Algorithm R で処理する）。 */
+	private boolean merged;
+
+	/** 乱数生成器。 */
+	private final Randomizer random;
+
+	/**
+	 * コンストラクタ。
+	 *
+	 * @param size 選択する数
+	 * @throws IllegalArgumentException 選択する数が負数の場合
+	 */
+	public Reservoir(int size) {
+		this(size, Randomizer.threadLocal());
+	}
+
+	/**
+	 * コンストラクタ。
+	 *
+	 * @param size 選択する数
+	 * @param random 乱数の生成方法
+	 * @throws IllegalArgumentException 選択する数が負数の場合
+	 */
+	public Reservoir(int size, Randomizer random) {
+		if (size < 0) {
+			throw new IllegalArgumentException("size: " + size);
+		}
+
+		this.items = new Object[size];
+		this.random = random;
+	}
+
+	/**
+	 * 要素を追加します。
+	 *
+	 * @param value 要素
+	 */
+	public void add(T value) {
+		long index = count++;
+		int size = items.length;
+
+		if (size == 0) {
+			return;
+		}
+
+		if (index < size) {
+			items[(int) index] = value;
+
+			if (index == size - 1) {
+				w = Math.exp(Math.log(uniform()) / size);
+				skip(index);
+			}
+		} else if (merged) {
+			long slot = (long) (random.nextDouble() * count);
+
+			if (slot < size) {
+				items[(int) slot] = value;
+			}
+		} else if (index == next) {
+			items[random.nextInt(size)] = value;
+			w *= Math.exp(Math.log(uniform()) / size);
+			skip(index);
+		}
+	}
+
+	/**
+	 * 別のリザーバーを統合します。
+	 *
+	 * <p>
+	 * 統合後のリザーバーは、2つの要素の列を連結した列から選択したものと同じ分布になります。
+	 * </p>
+	 *
+	 * @param other 別のリザーバー
+	 * @return このインスタンス自身
+	 * @throws IllegalArgumentException 選択する数が異なる場合
+	 */
+	public Reservoir<T> merge(Reservoir<T> other) {
+		int size = items.length;
+
+		if (other.items.length != size) {
+			throw new IllegalArgumentException("size: " + size + ", other: " + other.items.length);
+		}
+
+		if (other.count == 0) {
+			return this;
+		}
+
+		if (count == 0) {
+			items = other.items.clone();
+			count = other.count;
+			next = other.next;
+			w = other.w;
+			merged = other.merged;
+			return this;
+		}
+
+		Object[] mine = Arrays.copyOf(items, held());
+		Object[] theirs = Arrays.copyOf(other.items, other.held());
+		long restMine = count;
+		long restTheirs = other.count;
+		int heldMine = mine.length;
+		int heldTheirs = theirs.length;
+		Object[] result = new Object[size];
+		int filled = 0;
+
+		// 2つの母集団から非復元抽出するのと同じように、母集団の残りの数に比例して選ぶ
+		while (filled < size && (heldMine > 0 || heldTheirs > 0)) {
+			boolean pickMine = random.nextDouble() * (restMine + restTheirs) < restMine;
+
+			if (pickMine ? heldMine == 0 : heldTheirs == 0) {
+				pickMine = !pickMine;
+			}
+
+			if (pickMine) {
+				result[filled++] = takeRandom(mine, heldMine--);
+				restMine--;
+			} else {
+				result[filled++] = takeRandom(theirs, heldTheirs--);
+				restTheirs--;
+			}
+		}
+
+		items = result;
+		count += other.count;
+		merged = true;
+		return this;
+	}
+
+	/**
+	 * これまでに追加された要素の数を取得します。
+	 *
+	 * @return これまでに追加された要素の数
+	 */
+	public long count() {
+		return count;
+	}
+
+	/**
+	 * 選択された要素を取得します。
+	 *
+	 * @return 選択された要素（順番は不定）
+	 */
+	@SuppressWarnings("unchecked")
+	public List<T> values() {
+		ArrayList<T> result = new ArrayList<>(held());
+
+		for (int i = 0; i < held(); i++) {
+			result.add((T) items[i]);
+		}
+
+		return result;
+	}
+
+	/**
+	 * リザーバーが保持している要素の数を取得します。
+	 *
+	 * @return リザーバーが保持している要素の数
+	 */
+	private int held() {
+		return (int) Math.min(count, items.length);
+	}
+
+	/**
+	 * 次に置き換えを行う要素の番号を計算します。
+	 *
+	 * @param index 現在の要素の番号
+	 */
+	private void skip(long index) {
+		next = index + (long) Math.floor(Math.log(uniform()) / Math.log1p(-w)) + 1;
+	}
+
+	/**
+	 * 0より大きく1以下の一様乱数を取得します。
+	 *
+	 * @return 0より大きく1以下の一様乱数
+	 */
+	private double uniform() {
+		return 1 - random.nextDouble();
+	}
+
+	/**
+	 * 配列の先頭から指定された数の中からランダムに1つ取り出し、末尾の要素で埋めます。
+	 *
+	 * @param array 配列
+	 * @param held 配列の先頭から、取り出し対象となる数
+	 * @return 取り出した要素
+	 */
+	private Object takeRandom(Object[] array, int held) {
+		int index = random.nextInt(held);
+		Object value = array[index];
+		array[index] = array[held - 1];
+		return value;
+	}
+}
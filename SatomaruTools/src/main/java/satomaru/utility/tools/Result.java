@@ -1,14 +1,20 @@
 package satomaru.utility.tools;
 
+import java.util.Objects;
 import java.util.Optional;
 import java.util.function.Consumer;
 
 /**
  * try-catchをオブジェクトとしてサポートします。
  * 
+ * <p>
+ * 例外が発生しなかった場合と発生した場合で、それぞれ専用のサブクラスのインスタンスになります。
+ * どちらも処理結果または例外の1つだけを保持します。
+ * </p>
+ * 
  * @param <T> 処理結果の型
  */
-public final class Result<T> {
+public abstract class Result<T> {
 
 	/**
 	 * 処理を行います。
@@ -56,27 +62,302 @@ public final class Result<T> {
 	 */
 	public static <T> Result<T> of(Invoker<? extends T> invoker) {
 		try {
-			return new Result<>(Optional.of(invoker.invoke()), Optional.empty());
+			return new Ok<>(Objects.requireNonNull(invoker.invoke()));
 		} catch (Exception e) {
-			return new Result<>(Optional.empty(), Optional.of(e));
+			return new Ng<>(e);
 		}
 	}
 
-	/** 実行結果。 */
-	private final Optional<T> value;
+	/**
+	 * 値を処理し、リザルトのインスタンスを作成します。
+	 * 
+	 * <p>
+	 * {@code of(() -> processor.process(value))} と同じですが、ラムダ式を生成しません。
+	 * 処理結果がnullの場合は、NullPointerExceptionが発生した扱いになります。
+	 * </p>
+	 * 
+	 * @param value 処理対象
+	 * @param processor 処理を行う関数
+	 * @return リザルトのインスタンス
+	 */
+	public static <T, R> Result<R> of(T value, Processor<? super T, ? extends R> processor) {
+		try {
+			return new Ok<>(Objects.requireNonNull(processor.process(value)));
+		} catch (Exception e) {
+			return new Ng<>(e);
+		}
+	}
 
-	/** 発生した例外。 */
-	private final Optional<Exception> exception;
+	/**
+	 * 再試行しながら処理を行い、リザルトのインスタンスを作成します。
+	 * 
+	 * <p>
+	 * 再試行までの間は、呼び出し元のスレッドが待機します。
+	 * 処理結果がnullの場合は、NullPointerExceptionが発生した扱いになります。
+	 * </p>
+	 * 
+	 * @param invoker 処理を行う関数
+	 * @param retry 再試行の方針
+	 * @return リザルトのインスタンス（試行回数は {@link #attempts()} で取得できます）
+	 */
+	public static <T> Result<T> of(Invoker<? extends T> invoker, Retry retry) {
+		return retry.invoke(invoker);
+	}
 
 	/**
-	 * コンストラクタ。
+	 * 例外が発生しなかったリザルトを作成します。
+	 * 
+	 * @param value 処理結果
+	 * @return リザルトのインスタンス
+	 * @throws NullPointerException 処理結果がnullの場合
+	 */
+	public static <T> Result<T> ok(T value) {
+		return new Ok<>(Objects.requireNonNull(value));
+	}
+
+	/**
+	 * 例外が発生したリザルトを作成します。
 	 * 
-	 * @param value 実行結果
 	 * @param exception 発生した例外
+	 * @return リザルトのインスタンス
+	 * @throws NullPointerException 例外がnullの場合
+	 */
+	public static <T> Result<T> ng(Exception exception) {
+		return new Ng<>(Objects.requireNonNull(exception));
+	}
+
+	/**
+	 * スタックトレースを記録しない、軽量な失敗のリザルトを作成します。
+	 * 
+	 * @param code 失敗を識別するコード
+	 * @param message メッセージ
+	 * @return リザルトのインスタンス
+	 * @see Failure
+	 */
+	public static <T> Result<T> fail(String code, String message) {
+		return new Ng<>(new Failure(code, message));
+	}
+
+	/**
+	 * 例外が発生しなかった場合のリザルトです。
+	 * 
+	 * @param <T> 処理結果の型
+	 */
+	private static class Ok<T> extends Result<T> {
+
+		/** 実行結果。 */
+		private final T value;
+
+		/**
+		 * コンストラクタ。
+		 * 
+		 * @param value 実行結果
+		 */
+		private Ok(T value) {
+			this.value = value;
+		}
+
+		@Override
+		public <R> Result<R> process(Processor<? super T, ? extends R> processor) {
+			return of(value, processor);
+		}
+
+		@Override
+		public <R> Result<R> process(Processor<? super T, ? extends R> processor, Retry retry) {
+			return retry.invoke(() -> processor.process(value));
+		}
+
+		@Override
+		Result<T> withAttempts(int attempts) {
+			return (attempts == 1) ? this : new RetriedOk<>(value, attempts);
+		}
+
+		@Override
+		public Result<T> whenOk(Consumer<? super T> consumer) {
+			consumer.accept(value);
+			return this;
+		}
+
+		@Override
+		public Result<T> whenNg(Consumer<? super Exception> consumer) {
+			return this;
+		}
+
+		@Override
+		public <E extends Exception> Result<T> when(Class<E> type, Consumer<? super E> consumer) {
+			return this;
+		}
+
+		@Override
+		public Optional<T> value() {
+			return Optional.of(value);
+		}
+
+		@Override
+		public Optional<Exception> exception() {
+			return Optional.empty();
+		}
+
+		@Override
+		public boolean isOk() {
+			return true;
+		}
+
+		@Override
+		public T unwrap() {
+			return value;
+		}
+
+		@Override
+		public String toString() {
+			return value.toString();
+		}
+	}
+
+	/**
+	 * 例外が発生した場合のリザルトです。
+	 * 
+	 * <p>
+	 * 処理結果の型に依存しないので、後続の処理では同じインスタンスをそのまま用います。
+	 * </p>
+	 * 
+	 * @param <T> 処理結果の型
+	 */
+	private static class Ng<T> extends Result<T> {
+
+		/** 発生した例外。 */
+		private final Exception exception;
+
+		/**
+		 * コンストラクタ。
+		 * 
+		 * @param exception 発生した例外
+		 */
+		private Ng(Exception exception) {
+			this.exception = exception;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public <R> Result<R> process(Processor<? super T, ? extends R> processor) {
+			return (Result<R>) this;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public <R> Result<R> process(Processor<? super T, ? extends R> processor, Retry retry) {
+			return (Result<R>) this;
+		}
+
+		@Override
+		Result<T> withAttempts(int attempts) {
+			return (attempts == 1) ? this : new RetriedNg<>(exception, attempts);
+		}
+
+		@Override
+		public Result<T> whenOk(Consumer<? super T> consumer) {
+			return this;
+		}
+
+		@Override
+		public Result<T> whenNg(Consumer<? super Exception> consumer) {
+			consumer.accept(exception);
+			return this;
+		}
+
+		@Override
+		public <E extends Exception> Result<T> when(Class<E> type, Consumer<? super E> consumer) {
+			if (type.isInstance(exception)) {
+				consumer.accept(type.cast(exception));
+			}
+
+			return this;
+		}
+
+		@Override
+		public Optional<T> value() {
+			return Optional.empty();
+		}
+
+		@Override
+		public Optional<Exception> exception() {
+			return Optional.of(exception);
+		}
+
+		@Override
+		public boolean isOk() {
+			return false;
+		}
+
+		@Override
+		public T unwrap() throws Exception {
+			throw exception;
+		}
+
+		@Override
+		public String toString() {
+			return exception.toString();
+		}
+	}
+
+	/**
+	 * 再試行した結果、例外が発生しなかった場合のリザルトです。
+	 * 
+	 * @param <T> 処理結果の型
+	 */
+	private static final class RetriedOk<T> extends Ok<T> {
+
+		/** 試行回数。 */
+		private final int attempts;
+
+		/**
+		 * コンストラクタ。
+		 * 
+		 * @param value 実行結果
+		 * @param attempts 試行回数
+		 */
+		private RetriedOk(T value, int attempts) {
+			super(value);
+			this.attempts = attempts;
+		}
+
+		@Override
+		public int attempts() {
+			return attempts;
+		}
+	}
+
+	/**
+	 * 再試行した結果、例外が発生した場合のリザルトです。
+	 * 
+	 * @param <T> 処理結果の型
+	 */
+	private static final class RetriedNg<T> extends Ng<T> {
+
+		/** 試行回数。 */
+		private final int attempts;
+
+		/**
+		 * コンストラクタ。
+		 * 
+		 * @param exception 発生した例外
+		 * @param attempts 試行回数
+		 */
+		private RetriedNg(Exception exception, int attempts) {
+			super(exception);
+			this.attempts = attempts;
+		}
+
+		@Override
+		public int attempts() {
+			return attempts;
+		}
+	}
+
+	/**
+	 * コンストラクタ。
 	 */
-	private Result(Optional<T> value, Optional<Exception> exception) {
-		this.value = value;
-		this.exception = exception;
+	private Result() {
 	}
 
 	/**
@@ -89,11 +370,21 @@ public final class Result<T> {
 	 * @param processor 処理結果をさらに処理する関数
 	 * @return 処理した後のインスタンス
 	 */
-	public <R> Result<R> process(Processor<? super T, ? extends R> processor) {
-		return (value.isPresent())
-				? of(() -> processor.process(value.get()))
-				: new Result<>(Optional.empty(), exception);
-	}
+	public abstract <R> Result<R> process(Processor<? super T, ? extends R> processor);
+
+	/**
+	 * 例外が発生しなかった場合、再試行しながら処理結果をさらに処理します。
+	 * 
+	 * <p>
+	 * 再試行までの間は、呼び出し元のスレッドが待機します。
+	 * 処理結果がnullの場合は、NullPointerExceptionが発生した扱いになります。
+	 * </p>
+	 * 
+	 * @param processor 処理結果をさらに処理する関数
+	 * @param retry 再試行の方針
+	 * @return 処理した後のインスタンス
+	 */
+	public abstract <R> Result<R> process(Processor<? super T, ? extends R> processor, Retry retry);
 
 	/**
 	 * 例外が発生しなかった場合、処理結果を評価します。
@@ -101,10 +392,7 @@ public final class Result<T> {
 	 * @param consumer 処理結果を評価する関数
 	 * @return このインスタンス自身
 	 */
-	public Result<T> whenOk(Consumer<? super T> consumer) {
-		value.ifPresent(consumer);
-		return this;
-	}
+	public abstract Result<T> whenOk(Consumer<? super T> consumer);
 
 	/**
 	 * 例外が発生した場合、その例外を評価します。
@@ -112,10 +400,7 @@ public final class Result<T> {
 	 * @param consumer 例外を評価する関数
 	 * @return このインスタンス自身
 	 */
-	public Result<T> whenNg(Consumer<? super Exception> consumer) {
-		exception.ifPresent(consumer);
-		return this;
-	}
+	public abstract Result<T> whenNg(Consumer<? super Exception> consumer);
 
 	/**
 	 * 指定された例外、またはそのサブクラスの例外が発生した場合、その例外を評価します。
@@ -124,56 +409,67 @@ public final class Result<T> {
 	 * @param consumer 例外を評価する関数
 	 * @return このインスタンス自身
 	 */
-	public <E extends Exception> Result<T> when(Class<E> type, Consumer<? super E> consumer) {
-		exception.filter(type::isInstance).ifPresent(e -> consumer.accept(type.cast(e)));
-		return this;
-	}
+	public abstract <E extends Exception> Result<T> when(Class<E> type, Consumer<? super E> consumer);
 
 	/**
 	 * 実行結果を取得します。
 	 * 
 	 * @return 実行結果
 	 */
-	public Optional<T> value() {
-		return value;
-	}
+	public abstract Optional<T> value();
 
 	/**
 	 * 発生した例外を取得します。
 	 * 
 	 * @return 発生した例外
 	 */
-	public Optional<Exception> exception() {
-		return exception;
-	}
+	public abstract Optional<Exception> exception();
 
 	/**
 	 * 例外が発生しなかったことを判定します。
 	 * 
 	 * @return 例外が発生しなかった場合はtrue
 	 */
-	public boolean isOk() {
-		return value.isPresent();
-	}
+	public abstract boolean isOk();
 
 	/**
 	 * 例外が発生したことを判定します。
 	 * 
 	 * @return 例外が発生した場合はtrue
 	 */
-	public boolean isNg() {
-		return exception.isPresent();
+	public final boolean isNg() {
+		return !isOk();
 	}
 
+	/**
+	 * このリザルトを得るまでに行った試行回数を取得します。
+	 * 
+	 * <p>
+	 * 再試行の方針を指定しなかった場合は、常に1です。
+	 * 例外が発生した後の処理は行われないので、例外が発生したリザルトでは、例外が発生した処理の試行回数になります。
+	 * </p>
+	 * 
+	 * @return 試行回数
+	 */
+	public int attempts() {
+		return 1;
+	}
+
+	/**
+	 * 試行回数を設定したリザルトを取得します。
+	 * 
+	 * @param attempts 試行回数
+	 * @return 試行回数を設定したリザルト
+	 */
+	abstract Result<T> withAttempts(int attempts);
+
 	/**
 	 * 例外が発生した場合はその例外を送出し、そうでない場合は実行結果を返却します。
 	 * 
 	 * @return 実行結果
 	 * @throws Exception 例外が発生した場合
 	 */
-	public T unwrap() throws Exception {
-		return value.orElseThrow(exception::get);
-	}
+	public abstract T unwrap() throws Exception;
 
 	/**
 	 * 文字列表現を取得します。
@@ -181,7 +477,5 @@ public final class Result<T> {
 	 * @return 文字列表現
 	 */
 	@Override
-	public String toString() {
-		return value.map(Object::toString).orElseGet(() -> exception.map(Object::toString).get());
-	}
+	public abstract String toString();
 }
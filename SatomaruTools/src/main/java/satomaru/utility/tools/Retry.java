@@ -0,0 +1,334 @@
+package satomaru.utility.tools;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import satomaru.utility.tools.Result.Invoker;
+
+/**
+ * 処理に失敗した場合の、再試行の方針です。
+ *
+ * <p>
+ * このクラスは不変です。各メソッドは、設定を変更した新しいインスタンスを返却します。
+ * </p>
+ */
+public final class Retry {
+
+	/**
+	 * 再試行までの待機に用いるタイマーを保持します。
+	 */
+	private static final class Timer {
+
+		/** 再試行までの待機に用いるタイマー。 */
+		private static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "satomaru-retry-timer");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * 一定の間隔で再試行する方針を作成します。
+	 *
+	 * <p>
+	 * 最大試行回数は3回、全ての例外を再試行の対象とします。
+	 * </p>
+	 *
+	 * @param delay 再試行までの間隔
+	 * @return 再試行の方針
+	 * @throws IllegalArgumentException 間隔が負数の場合
+	 */
+	public static Retry fixed(Duration delay) {
+		if (delay.isNegative()) {
+			throw new IllegalArgumentException("delay: " + delay);
+		}
+
+		return new Retry(3, delay.toNanos(), delay.toNanos(), 1, 0, Arrays.asList(Exception.class), Long.MAX_VALUE);
+	}
+
+	/**
+	 * 再試行の度に間隔を2倍にする（指数バックオフ）方針を作成します。
+	 *
+	 * <p>
+	 * 最大試行回数は3回、全ての例外を再試行の対象とします。
+	 * </p>
+	 *
+	 * @param initial 最初の再試行までの間隔
+	 * @param max 再試行までの間隔の上限
+	 * @return 再試行の方針
+	 * @throws IllegalArgumentException 間隔が負数の場合、または上限が最初の間隔より短い場合
+	 */
+	public static Retry exponential(Duration initial, Duration max) {
+		if (initial.isNegative() || max.compareTo(initial) < 0) {
+			throw new IllegalArgumentException(String.format("initial: %s, max: %s", initial, max));
+		}
+
+		return new Retry(3, initial.toNanos(), max.toNanos(), 2, 0, Arrays.asList(Exception.class), Long.MAX_VALUE);
+	}
+
+	/** 最大試行回数（最初の1回を含む）。 */
+	private final int maxAttempts;
+
+	/** 最初の再試行までの間隔（ナノ秒）。 */
+	private final long initialNanos;
+
+	/** 再試行までの間隔の上限（ナノ秒）。 */
+	private final long maxNanos;
+
+	/** 再試行の度に間隔に掛ける倍率。 */
+	private final double multiplier;
+
+	/** 間隔を揺らがせる割合（0以上1以下）。 */
+	private final double jitter;
+
+	/** 再試行の対象となる例外。 */
+	private final List<Class<? extends Exception>> retryOn;
+
+	/** 全体の制限時間（ナノ秒）。 */
+	private final long timeoutNanos;
+
+	/**
+	 * コンストラクタ。
+	 *
+	 * @param maxAttempts 最大試行回数
+	 * @param initialNanos 最初の再試行までの間隔
+	 * @param maxNanos 再試行までの間隔の上限
+	 * @param multiplier 再試行の度に間隔に掛ける倍率
+	 * @param jitter 間隔を揺らがせる割合
+	 * @param retryOn 再試行の対象となる例外
+	 * @param timeoutNanos 全体の制限時間
+	 */
+	private Retry(
+			int maxAttempts,
+			long initialNanos,
+			long maxNanos,
+			double multiplier,
+			double jitter,
+			List<Class<? extends Exception>> retryOn,
+			long timeoutNanos) {
+
+		this.maxAttempts = maxAttempts;
+		this.initialNanos = initialNanos;
+		this.maxNanos = maxNanos;
+		this.multiplier = multiplier;
+		this.jitter = jitter;
+		this.retryOn = retryOn;
+		this.timeoutNanos = timeoutNanos;
+	}
+
+	/**
+	 * 最大試行回数を指定します。
+	 *
+	 * @param maxAttempts 最大試行回数（最初の1回を含む）
+	 * @return 新しい再試行の方針
+	 * @throws IllegalArgumentException 最大試行回数が1未満の場合
+	 */
+	public Retry maxAttempts(int maxAttempts) {
+		if (maxAttempts < 1) {
+			throw new IllegalArgumentException("maxAttempts: " + maxAttempts);
+		}
+
+		return new Retry(maxAttempts, initialNanos, maxNanos, multiplier, jitter, retryOn, timeoutNanos);
+	}
+
+	/**
+	 * 再試行までの間隔を、ランダムに短くする割合を指定します。
+	 *
+	 * <p>
+	 * 例えば 0.5 を指定すると、間隔は本来の 50% から 100% の間でランダムになります。
+	 * 1 を指定すると、0 から本来の間隔までのランダム（フルジッター）になります。
+	 * </p>
+	 *
+	 * @param jitter 間隔を揺らがせる割合（0以上1以下）
+	 * @return 新しい再試行の方針
+	 * @throws IllegalArgumentException 割合が範囲外の場合
+	 */
+	public Retry jitter(double jitter) {
+		if (!(jitter >= 0 && jitter <= 1)) {
+			throw new IllegalArgumentException("jitter: " + jitter);
+		}
+
+		return new Retry(maxAttempts, initialNanos, maxNanos, multiplier, jitter, retryOn, timeoutNanos);
+	}
+
+	/**
+	 * 再試行の対象となる例外を指定します。
+	 *
+	 * <p>
+	 * 指定された例外、またはそのサブクラスの例外が発生した場合のみ再試行します。
+	 * </p>
+	 *
+	 * @param types 再試行の対象となる例外
+	 * @return 新しい再試行の方針
+	 */
+	@SafeVarargs
+	public final Retry on(Class<? extends Exception>... types) {
+		List<Class<? extends Exception>> list = new ArrayList<>(types.length);
+
+		for (Class<? extends Exception> type : types) {
+			list.add(type);
+		}
+
+		return new Retry(maxAttempts, initialNanos, maxNanos, multiplier, jitter, list, timeoutNanos);
+	}
+
+	/**
+	 * 全体の制限時間を指定します。
+	 *
+	 * <p>
+	 * 次の再試行を開始する時点で制限時間を過ぎてしまう場合は、待機せずに諦めます。
+	 * 実行中の処理を中断することはありません。
+	 * </p>
+	 *
+	 * @param timeout 最初の試行を開始してからの制限時間
+	 * @return 新しい再試行の方針
+	 * @throws IllegalArgumentException 制限時間が負数の場合
+	 */
+	public Retry deadline(Duration timeout) {
+		if (timeout.isNegative()) {
+			throw new IllegalArgumentException("timeout: " + timeout);
+		}
+
+		return new Retry(maxAttempts, initialNanos, maxNanos, multiplier, jitter, retryOn, timeout.toNanos());
+	}
+
+	/**
+	 * 再試行しながら処理を行います。
+	 *
+	 * <p>
+	 * 再試行までの間は、呼び出し元のスレッドが待機します。
+	 * スレッドを占有したくない場合は、{@link #invokeAsync(Invoker, Executor)} を用いてください。
+	 * </p>
+	 *
+	 * @param invoker 処理を行う関数
+	 * @return リザルト（試行回数は {@link Result#attempts()} で取得できます）
+	 */
+	<T> Result<T> invoke(Invoker<? extends T> invoker) {
+		long start = System.nanoTime();
+
+		for (int attempt = 1; ; attempt++) {
+			Result<T> result = Result.of(invoker);
+			long delay = nextDelay(result, attempt, start);
+
+			if (delay < 0) {
+				return result.withAttempts(attempt);
+			}
+
+			// parkNanos は早く戻ることがあるので、期限まで待機し直す
+			long deadline = System.nanoTime() + delay;
+
+			for (long remaining = delay; remaining > 0; remaining = deadline - System.nanoTime()) {
+				LockSupport.parkNanos(remaining);
+
+				if (Thread.currentThread().isInterrupted()) {
+					return result.withAttempts(attempt);
+				}
+			}
+		}
+	}
+
+	/**
+	 * 再試行しながら、非同期に処理を行います。
+	 *
+	 * <p>
+	 * 再試行までの待機はタイマーで行うので、待機中にスレッドを占有しません。
+	 * </p>
+	 *
+	 * @param invoker 処理を行う関数
+	 * @param executor 処理を行う Executor
+	 * @return リザルトの Future
+	 */
+	<T> CompletableFuture<Result<T>> invokeAsync(Invoker<? extends T> invoker, Executor executor) {
+		CompletableFuture<Result<T>> future = new CompletableFuture<>();
+		long start = System.nanoTime();
+		attemptAsync(invoker, executor, future, 1, start);
+		return future;
+	}
+
+	/**
+	 * 非同期に1回試行し、必要であれば次の試行を予約します。
+	 *
+	 * <p>
+	 * Executor やタイマーが受け付けない場合は、その例外のリザルトで Future を完了させます。
+	 * 処理で Error が発生した場合は、Future を例外で完了させます。
+	 * </p>
+	 *
+	 * @param invoker 処理を行う関数
+	 * @param executor 処理を行う Executor
+	 * @param future 最終的なリザルトを設定する Future
+	 * @param attempt 試行回数
+	 * @param start 最初の試行を開始した時刻
+	 */
+	private <T> void attemptAsync(
+			Invoker<? extends T> invoker,
+			Executor executor,
+			CompletableFuture<Result<T>> future,
+			int attempt,
+			long start) {
+
+		try {
+			executor.execute(() -> {
+				try {
+					Result<T> result = Result.of(invoker);
+					long delay = nextDelay(result, attempt, start);
+
+					if (delay < 0) {
+						future.complete(result.withAttempts(attempt));
+					} else {
+						Timer.INSTANCE.schedule(
+								() -> attemptAsync(invoker, executor, future, attempt + 1, start),
+								delay,
+								TimeUnit.NANOSECONDS);
+					}
+				} catch (RuntimeException e) {
+					future.complete(Result.<T> ng(e).withAttempts(attempt));
+				} catch (Error e) {
+					future.completeExceptionally(e);
+					throw e;
+				}
+			});
+		} catch (RuntimeException e) {
+			// 停止済の Executor など
+			future.complete(Result.<T> ng(e).withAttempts(attempt));
+		}
+	}
+
+	/**
+	 * 次の試行までの間隔を計算します。
+	 *
+	 * @param result 今回のリザルト
+	 * @param attempt 今回の試行回数
+	 * @param start 最初の試行を開始した時刻
+	 * @return 次の試行までの間隔（ナノ秒）、再試行しない場合は負数
+	 */
+	private long nextDelay(Result<?> result, int attempt, long start) {
+		if (result.isOk() || attempt >= maxAttempts) {
+			return -1;
+		}
+
+		Exception exception = result.exception().get();
+
+		if (retryOn.stream().noneMatch(type -> type.isInstance(exception))) {
+			return -1;
+		}
+
+		double base = Math.min(maxNanos, initialNanos * Math.pow(multiplier, attempt - 1));
+		long delay = (long) (base * (1 - jitter * ThreadLocalRandom.current().nextDouble()));
+
+		// 次の試行の開始が制限時間を過ぎる場合は諦める
+		if (timeoutNanos != Long.MAX_VALUE && System.nanoTime() + delay - start >= timeoutNanos) {
+			return -1;
+		}
+
+		return delay;
+	}
+}
@@ -0,0 +1,160 @@
+package satomaru.utility.tools;
+
+/**
+ * 重複のないインデックスを、まとめて選択する為のユーティリティです。
+ */
+final class Sampling {
+
+	/** 選択数が母数のこの割合以下の場合は、Floyd のアルゴリズムを用います。 */
+	private static final int FLOYD_RATIO = 4;
+
+	private Sampling() {
+	}
+
+	/**
+	 * 0以上 n 未満のインデックスから、重複なく k 個をランダムな順番で選択します。
+	 *
+	 * <p>
+	 * k が n に比べて小さい場合は Floyd のアルゴリズム（O(k) のメモリ）、
+	 * そうでない場合は部分的な Fisher–Yates シャッフル（O(n) のメモリ）を用います。
+	 * </p>
+	 *
+	 * @param n 母数
+	 * @param k 選択数（n 以下）
+	 * @param random 乱数生成器
+	 * @return 選択されたインデックス
+	 */
+	static int[] indexes(int n, int k, Randomizer random) {
+		return ((long) k * FLOYD_RATIO <= n) ? floyd(n, k, random) : partialShuffle(n, k, random);
+	}
+
+	/**
+	 * Floyd のアルゴリズムで選択します。
+	 *
+	 * @param n 母数
+	 * @param k 選択数
+	 * @param random 乱数生成器
+	 * @return 選択されたインデックス
+	 */
+	private static int[] floyd(int n, int k, Randomizer random) {
+		int[] result = new int[k];
+
+		// 0 を空きとして扱う為、インデックス + 1 を格納するオープンアドレス法のハッシュ集合
+		int[] set = new int[Integer.highestOneBit(Math.max(k, 1) * 2) * 2];
+		int mask = set.length - 1;
+		int count = 0;
+
+		for (int j = n - k; j < n; j++) {
+			int t = random.nextInt(j + 1);
+			result[count++] = insert(set, mask, t) ? t : insertNew(set, mask, j);
+		}
+
+		// Floyd のアルゴリズムは集合としては一様だが、順番は一様ではないのでシャッフルする
+		shuffle(result, random);
+		return result;
+	}
+
+	/**
+	 * 部分的な Fisher–Yates シャッフルで選択します。
+	 *
+	 * @param n 母数
+	 * @param k 選択数
+	 * @param random 乱数生成器
+	 * @return 選択されたインデックス
+	 */
+	private static int[] partialShuffle(int n, int k, Randomizer random) {
+		int[] all = new int[n];
+
+		for (int i = 0; i < n; i++) {
+			all[i] = i;
+		}
+
+		for (int i = 0; i < k; i++) {
+			int j = i + random.nextInt(n - i);
+			int temp = all[i];
+			all[i] = all[j];
+			all[j] = temp;
+		}
+
+		int[] result = new int[k];
+		System.arraycopy(all, 0, result, 0, k);
+		return result;
+	}
+
+	/**
+	 * 配列をシャッフルします。
+	 *
+	 * @param array 配列
+	 * @param random 乱数生成器
+	 */
+	static void shuffle(int[] array, Randomizer random) {
+		for (int i = array.length - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			int temp = array[i];
+			array[i] = array[j];
+			array[j] = temp;
+		}
+	}
+
+	/**
+	 * 配列をシャッフルします。
+	 *
+	 * @param array 配列
+	 * @param random 乱数生成器
+	 */
+	static void shuffle(Object[] array, Randomizer random) {
+		for (int i = array.length - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			Object temp = array[i];
+			array[i] = array[j];
+			array[j] = temp;
+		}
+	}
+
+	/**
+	 * ハッシュ集合に値を追加します。
+	 *
+	 * @param set ハッシュ集合
+	 * @param mask ハッシュ値のマスク
+	 * @param value 値
+	 * @return 追加した場合はtrue、既に存在していた場合はfalse
+	 */
+	private static boolean insert(int[] set, int mask, int value) {
+		int stored = value + 1;
+
+		for (int i = mix(value) & mask; ; i = (i + 1) & mask) {
+			if (set[i] == 0) {
+				set[i] = stored;
+				return true;
+			}
+
+			if (set[i] == stored) {
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * 存在しないことが分かっている値を、ハッシュ集合に追加します。
+	 *
+	 * @param set ハッシュ集合
+	 * @param mask ハッシュ値のマスク
+	 * @param value 値
+	 * @return 値
+	 */
+	private static int insertNew(int[] set, int mask, int value) {
+		insert(set, mask, value);
+		return value;
+	}
+
+	/**
+	 * ハッシュ値を攪拌します。
+	 *
+	 * @param value 値
+	 * @return 攪拌されたハッシュ値
+	 */
+	private static int mix(int value) {
+		int h = value * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
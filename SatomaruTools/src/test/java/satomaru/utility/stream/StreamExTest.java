@@ -3,13 +3,38 @@ package satomaru.utility.stream;
 import static org.junit.Assert.*;
 
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.junit.Test;
 
+import satomaru.utility.iterator.IndexSpliterator;
+import satomaru.utility.iterator.IteratorSpliterator;
 import satomaru.utility.iterator.Iterators;
+import satomaru.utility.tools.Failure;
+import satomaru.utility.tools.Pair;
 import satomaru.utility.tools.Result;
 
 /**
@@ -86,6 +111,289 @@ public class StreamExTest {
 		assertTrue(result.isNg());
 	}
 
+	/**
+	 * 想定済の失敗は、スタックトレースなしで軽量に扱いたい。
+	 */
+	@Test
+	public void testProcessFailure() {
+		Failure negative = Failure.constant("NEGATIVE", "negative value");
+
+		List<Result<Integer>> actual = StreamEx.of(1, -1, 0)
+			.process(n -> {
+				if (n < 0) {
+					throw negative;
+				} else if (n == 0) {
+					throw new Failure("ZERO", "zero value");
+				}
+
+				return n;
+			})
+			.mapToEx()
+			.unwrap()
+			.collect(Collectors.toList());
+
+		assertTrue(actual.get(0).isOk());
+		assertSame(negative, actual.get(1).exception().get());
+		assertEquals(0, negative.getStackTrace().length);
+
+		Failure zero = (Failure) actual.get(2).exception().get();
+		assertEquals("ZERO", zero.getCode());
+		assertEquals(0, zero.getStackTrace().length);
+
+		Failure.setStackTraceEnabled(true);
+
+		try {
+			assertTrue(new Failure("DEBUG", "debug").getStackTrace().length > 0);
+			assertEquals(0, Failure.constant("CONSTANT", "constant").getStackTrace().length);
+		} finally {
+			Failure.setStackTraceEnabled(false);
+		}
+
+		assertEquals("satomaru.utility.tools.Failure[CODE]: message", Result.fail("CODE", "message").toString());
+	}
+
+	/**
+	 * 壊れたファイルを最後まで読んでから気付くのは、つらい。
+	 */
+	@Test
+	public void testFailFast() {
+		AtomicInteger pulled = new AtomicInteger();
+		AtomicReference<Exception> first = new AtomicReference<>();
+		AtomicLong processed = new AtomicLong();
+
+		List<Result<Integer>> actual = StreamEx.of("1", "x", "3", "y", "5", "z", "7")
+			.process(s -> {
+				pulled.incrementAndGet();
+				return Integer.valueOf(s);
+			})
+			.failFast(1, (e, n) -> {
+				first.set(e);
+				processed.set(n);
+			})
+			.mapToEx()
+			.unwrap()
+			.collect(Collectors.toList());
+
+		// 2つ目の例外を含む "y" までで打ち切ること
+		assertEquals(4, actual.size());
+		assertTrue(actual.get(3).isNg());
+		assertEquals(4, pulled.get());
+		assertEquals(4, processed.get());
+		assertTrue(first.get().getMessage().contains("\"x\""));
+
+		// 例外が発生しなければ、全て処理すること
+		assertEquals(3, StreamEx.of("1", "2", "3").process(Integer::valueOf).failFast().mapToEx().unwrap().count());
+	}
+
+	/**
+	 * 並列でも、誰かが失敗したら皆やめてほしい。
+	 */
+	@Test(timeout = 10000)
+	public void testFailFastParallel() {
+		AtomicInteger pulled = new AtomicInteger();
+		AtomicLong processed = new AtomicLong();
+		AtomicReference<Exception> first = new AtomicReference<>();
+		CountDownLatch stopped = new CountDownLatch(1);
+
+		// 最初に取得した要素で失敗し、他の要素は打ち切りが通知されるまで待つので、
+		// 打ち切った後に取得されるのは、各スレッドが処理中の要素だけになる
+		long count = StreamEx.of(IntStream.range(0, 1_000_000).boxed().parallel())
+			.process(n -> {
+				if (pulled.incrementAndGet() == 1) {
+					throw new Failure("BAD", "bad");
+				}
+
+				stopped.await();
+				return n;
+			})
+			.failFast(0, (e, n) -> {
+				first.set(e);
+				processed.set(n);
+				stopped.countDown();
+			})
+			.mapToEx()
+			.unwrap()
+			.count();
+
+		assertTrue(first.get() instanceof Failure);
+		assertTrue(processed.get() > 0);
+		assertTrue(String.valueOf(pulled.get()), pulled.get() < 1_000_000);
+		assertEquals(count, pulled.get());
+	}
+
+	/**
+	 * 成功と失敗を仕分けるのに、2回も回したくない。
+	 */
+	@Test
+	public void testPartition() {
+		Pair<List<Integer>, List<Exception>> actual = StreamEx.of("1", "x", "3", "")
+			.process(Integer::valueOf)
+			.partition();
+
+		assertEquals(Arrays.asList(1, 3), actual.getFirst());
+		assertEquals(2, actual.getSecond().size());
+		assertEquals(NumberFormatException.class, actual.getSecond().get(0).getClass());
+
+		// 並列でも、例外の種類ごとに数えられること
+		Pair<Long, Map<Class<?>, Long>> counted = StreamEx.of(IntStream.range(0, 100_000).boxed().parallel())
+			.process(n -> {
+				if (n % 10 == 0) {
+					throw new Failure("TEN", "ten");
+				} else if (n % 7 == 0) {
+					throw new IllegalStateException("seven");
+				}
+
+				return n;
+			})
+			.partition(
+				Collectors.counting(),
+				Collectors.groupingBy(Exception::getClass, Collectors.counting()));
+
+		assertEquals(Long.valueOf(100_000 - 10_000 - 12_857), counted.getFirst());
+		assertEquals(Long.valueOf(10_000), counted.getSecond().get(Failure.class));
+		assertEquals(Long.valueOf(12_857), counted.getSecond().get(IllegalStateException.class));
+	}
+
+	/**
+	 * I/O 待ちの処理は、決まった数だけ並行させたい。
+	 */
+	@Test
+	public void testProcessAsync() {
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+
+		try {
+			AtomicInteger running = new AtomicInteger();
+			AtomicInteger peak = new AtomicInteger();
+
+			Result.Processor<Integer, Integer> slow = n -> {
+				peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+
+				try {
+					// 後の要素ほど早く終わる
+					Thread.sleep(10 - n % 10);
+					return n * 2;
+				} finally {
+					running.decrementAndGet();
+				}
+			};
+
+			List<Integer> ordered = StreamEx.of(IntStream.range(0, 100).boxed())
+				.process(n -> n)
+				.process(slow, executor, 4, true)
+				.partition()
+				.getFirst();
+
+			assertEquals(IntStream.range(0, 100).map(n -> n * 2).boxed().collect(Collectors.toList()), ordered);
+			assertTrue(String.valueOf(peak.get()), peak.get() <= 4 && peak.get() > 1);
+
+			// 無限の上流でも、必要な分だけ処理すること
+			AtomicInteger pulled = new AtomicInteger();
+			List<Integer> unordered = StreamEx.of(Stream.iterate(0, n -> n + 1).peek(n -> pulled.incrementAndGet()))
+				.process(n -> n)
+				.process(slow, executor, 4, false)
+				.mapToEx()
+				.unwrap()
+				.limit(20)
+				.map(r -> r.value().get())
+				.sorted()
+				.collect(Collectors.toList());
+
+			assertEquals(20, unordered.size());
+			assertTrue(String.valueOf(pulled.get()), pulled.get() <= 24);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Executor 上で何が起きても、永遠に待たされるのは勘弁してほしい。
+	 */
+	@Test(timeout = 10000)
+	public void testProcessAsyncFailure() throws Exception {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+
+		try {
+			// Error で完了した要素があっても、待ち続けずに送出すること
+			try {
+				StreamEx.of(IntStream.range(0, 10).boxed())
+					.process(n -> n)
+					.process(n -> {
+						if (n == 3) {
+							throw new AssertionError("boom");
+						}
+
+						return n;
+					}, executor, 4, false)
+					.partition();
+
+				fail();
+			} catch (CompletionException e) {
+				assertTrue(e.getCause() instanceof AssertionError);
+			}
+
+			// close すると、まだ開始していない処理を取り消すこと
+			AtomicInteger started = new AtomicInteger();
+
+			try (Stream<Result<Integer>> stream = StreamEx.of(IntStream.range(0, 100).boxed())
+					.process(n -> n)
+					.process(n -> {
+						started.incrementAndGet();
+						Thread.sleep(20);
+						return n;
+					}, executor, 8, true)
+					.mapToEx()
+					.unwrap()) {
+
+				assertEquals(Integer.valueOf(0), stream.findFirst().get().value().get());
+			}
+
+			sleep(400);
+			assertTrue(String.valueOf(started.get()), started.get() <= 4);
+		} finally {
+			executor.shutdown();
+		}
+
+		// 停止済の Executor では、拒否された例外が発生した扱いになること
+		List<Exception> rejected = StreamEx.of(IntStream.range(0, 5).boxed())
+			.process(n -> n)
+			.process(n -> n, executor, 2, false)
+			.partition()
+			.getSecond();
+
+		assertEquals(5, rejected.size());
+		assertTrue(rejected.get(0) instanceof RejectedExecutionException);
+	}
+
+	/**
+	 * 数値を扱うだけなのに、いちいち箱に詰めたくない。
+	 */
+	@Test
+	public void testPrimitive() {
+		assertArrayEquals(new int[] { 1, 2, 3 }, IntStreamEx.counter().unwrap().limit(3).toArray());
+		assertArrayEquals(new long[] { 10, 8, 6 }, LongStreamEx.counter(10, -2).unwrap().limit(3).toArray());
+		assertArrayEquals(new double[] { 1, 0.5, 0.25 }, DoubleStreamEx.iterate(1, d -> d / 2).unwrap().limit(3).toArray(), 0);
+
+		List<Result<Integer>> actual = IntStreamEx.of(6, 0, 3)
+			.process(n -> 6 / n)
+			.mapToEx()
+			.unwrap()
+			.collect(Collectors.toList());
+
+		assertEquals(Integer.valueOf(1), actual.get(0).value().get());
+		assertEquals(ArithmeticException.class, actual.get(1).exception().get().getClass());
+		assertEquals(Integer.valueOf(2), actual.get(2).value().get());
+
+		assertArrayEquals(new long[] { 5, 6 }, LongStreamEx.of(Iterators.longCounter(5, 1)).unwrap().limit(2).toArray());
+
+		List<String> paired = DoubleStreamEx.of(1.5, 2.5)
+			.pair(d -> Math.round(d))
+			.mapToEx((d, n) -> d + "=" + n)
+			.unwrap()
+			.collect(Collectors.toList());
+
+		assertEquals(Arrays.asList("1.5=2", "2.5=3"), paired);
+	}
+
 	/**
 	 * zip 的なやつを Java で作ろうとしたら、2つの Stream じゃなくて、2つの Iterator でやらないと、なんだか後ろめたいよね……。
 	 */
@@ -98,4 +406,308 @@ public class StreamExTest {
 
 		assertEquals(Arrays.asList("1 : foo", "2 : bar", "3 : baz"), actual);
 	}
+
+	/**
+	 * リストや配列なら、null があっても止まらずに、並列でも速く zip したい。
+	 */
+	@Test
+	public void testZipRandomAccess() {
+		List<String> actual = StreamEx.zip(Arrays.asList(1, null, 3), Arrays.asList("a", "b", null, "d"))
+			.mapToEx((i, s) -> i + ":" + s)
+			.unwrap()
+			.collect(Collectors.toList());
+
+		assertEquals(Arrays.asList("1:a", "null:b", "3:null"), actual);
+
+		List<String> longest = StreamEx.zipLongest(new Integer[] { 1, 2 }, new String[] { "a", "b", "c" }, 0, "-")
+			.mapToEx((i, s) -> i + ":" + s)
+			.unwrap()
+			.collect(Collectors.toList());
+
+		assertEquals(Arrays.asList("1:a", "2:b", "0:c"), longest);
+
+		// 両側を同じインデックスで分割するので、並列でも正しくペアになること
+		List<Integer> left = IntStream.range(0, 100_000).boxed().collect(Collectors.toList());
+		List<Integer> right = IntStream.range(0, 100_000).map(n -> n * 2).boxed().collect(Collectors.toList());
+		Stream<Pair<Integer, Integer>> zipped = StreamEx.zip(left, right).mapToEx().unwrap();
+
+		assertTrue(zipped.spliterator().hasCharacteristics(Spliterator.SUBSIZED));
+		assertEquals(100_000, StreamEx.zip(left, right).mapToEx().unwrap().parallel()
+			.filter(p -> p.getSecond() == p.getFirst() * 2)
+			.count());
+
+		// ランダムアクセスできないリストでも使えること
+		assertEquals(2, StreamEx.zip(new LinkedList<>(left), Arrays.asList("x", "y")).mapToEx().unwrap().count());
+	}
+
+	/**
+	 * インデックスだけで決まる値なら、分割して並列に作れるはず。
+	 */
+	@Test
+	public void testIndexSpliterator() {
+		IndexSpliterator<Integer> counter = IndexSpliterator.counter(1, 2, 10).skip(3);
+		assertEquals(7, counter.estimateSize());
+		assertEquals(Arrays.asList(7, 9, 11), StreamEx.of(counter).unwrap().limit(3).collect(Collectors.toList()));
+
+		assertEquals(Arrays.asList("a", null, "b"), IndexSpliterator.array("a", null, "b").stream(false).collect(Collectors.toList()));
+		assertEquals(Arrays.asList("x", "y", "x"), IndexSpliterator.rotator(3, "x", "y").stream(false).collect(Collectors.toList()));
+
+		// 並列でも、順番と値が正しいこと
+		List<Long> squares = IndexSpliterator.of(i -> (long) i * i, 0, 100_000).stream(true).collect(Collectors.toList());
+		assertEquals(100_000, squares.size());
+		assertEquals(Long.valueOf(99_999L * 99_999L), squares.get(99_999));
+
+		Spliterator<Long> whole = IndexSpliterator.of(i -> (long) i, 10, 20);
+		Spliterator<Long> prefix = whole.trySplit();
+		assertEquals(5, prefix.estimateSize());
+		assertEquals(5, whole.estimateSize());
+		assertTrue(whole.hasCharacteristics(Spliterator.SUBSIZED));
+
+		// 範囲を指定しなければ、Integer.MAX_VALUE 個まで作れること
+		assertEquals(Long.valueOf(Integer.MAX_VALUE - 1), StreamEx.of(IndexSpliterator.of(i -> (long) i).skip(Integer.MAX_VALUE - 1L))
+			.unwrap()
+			.findFirst()
+			.get());
+	}
+
+	/**
+	 * 遅いイテレーターでも、並列処理と I/O 待ちを重ねたい。
+	 */
+	@Test(timeout = 10000)
+	public void testIteratorSpliterator() {
+		// 速いソースでは、バッチが倍々に大きくなること
+		IteratorSpliterator<Integer> fast = IteratorSpliterator.of(Iterators.counter(0))
+			.batch(16, 64)
+			.targetBatchTime(Duration.ofSeconds(10))
+			.build();
+
+		assertEquals(16, fast.trySplit().estimateSize());
+		assertEquals(32, fast.trySplit().estimateSize());
+		assertEquals(64, fast.trySplit().estimateSize());
+		assertEquals(64, fast.trySplit().estimateSize());
+
+		// 遅いソースでは、バッチが小さくなること
+		IteratorSpliterator<Integer> slow = IteratorSpliterator.of(IntStream.range(0, 100).boxed().peek(n -> sleep(1)).iterator())
+			.batch(2, 64)
+			.targetBatchTime(Duration.ofNanos(1))
+			.build();
+
+		slow.trySplit();
+		slow.trySplit();
+		assertEquals(2, slow.trySplit().estimateSize());
+
+		// 目標の時間は、正でなければならないこと
+		for (Duration target : new Duration[] { Duration.ZERO, Duration.ofNanos(-1) }) {
+			try {
+				IteratorSpliterator.of(Iterators.counter(0)).targetBatchTime(target);
+				fail();
+			} catch (IllegalArgumentException e) {
+				assertEquals("target: " + target, e.getMessage());
+			}
+		}
+
+		// 先読みしても、順番と null が保たれること
+		List<String> prefetched = IteratorSpliterator.of(Arrays.asList("a", null, "c").iterator())
+			.prefetch(2)
+			.stream(false)
+			.collect(Collectors.toList());
+
+		assertEquals(Arrays.asList("a", null, "c"), prefetched);
+
+		try (Stream<Integer> stream = IteratorSpliterator.of(IntStream.range(0, 100_000).iterator())
+				.prefetch(1024)
+				.sizeHint(100_000)
+				.stream(true)) {
+
+			assertEquals(100_000L * 99_999 / 2, stream.mapToLong(n -> n).sum());
+		}
+
+		// 先読みしたスレッドで発生した例外が、呼び出し元に伝わること
+		Iterator<Integer> broken = Stream.of(1, 2).map(n -> {
+			if (n == 2) {
+				throw new IllegalStateException("broken");
+			}
+
+			return n;
+		}).iterator();
+
+		try {
+			IteratorSpliterator.of(broken).prefetch(4).stream(false).count();
+			fail();
+		} catch (IllegalStateException e) {
+			assertEquals("broken", e.getMessage());
+		}
+
+		// Error が発生しても、呼び出し元が待ち続けないこと
+		Iterator<Integer> fatal = Stream.of(1, 2).map(n -> {
+			if (n == 2) {
+				throw new AssertionError("fatal");
+			}
+
+			return n;
+		}).iterator();
+
+		try {
+			IteratorSpliterator.of(fatal).prefetch(4).stream(false).count();
+			fail();
+		} catch (AssertionError e) {
+			assertEquals("fatal", e.getMessage());
+		}
+	}
+
+	/**
+	 * 全部メモリーに載せてから手で分けるのは、もうやめたい。
+	 */
+	@Test
+	public void testChunkedAndSliding() {
+		assertEquals(
+			Arrays.asList(Arrays.asList(1, 2), Arrays.asList(3, null), Arrays.asList(5)),
+			StreamEx.of(1, 2, 3, null, 5).chunked(2).unwrap().collect(Collectors.toList()));
+
+		assertEquals(
+			Arrays.asList(Arrays.asList(1, 2, 3), Arrays.asList(3, 4, 5)),
+			StreamEx.of(1, 2, 3, 4, 5, 6).sliding(3, 2).unwrap().collect(Collectors.toList()));
+
+		assertEquals(
+			Arrays.asList(Arrays.asList(1), Arrays.asList(4)),
+			StreamEx.of(1, 2, 3, 4, 5).sliding(1, 3).unwrap().collect(Collectors.toList()));
+
+		assertTrue(StreamEx.of(1, 2).sliding(3, 1).unwrap().collect(Collectors.toList()).isEmpty());
+
+		// 無限の Stream でも、必要な分だけ読むこと
+		assertEquals(Arrays.asList(4, 5, 6), StreamEx.iterate(1, n -> n + 1).chunked(3).unwrap().skip(1).findFirst().get());
+
+		// 並列でも、順次と同じ結果になること
+		for (int[] params : new int[][] { { 100, 100 }, { 7, 3 }, { 3, 7 }, { 1000, 1 }, { 1, 1 } }) {
+			int size = params[0];
+			int step = params[1];
+			List<Integer> values = IntStream.range(0, 10_007).boxed().collect(Collectors.toList());
+
+			List<List<Integer>> expected = StreamEx.of(values.stream()).sliding(size, step).unwrap().collect(Collectors.toList());
+			List<List<Integer>> actual = StreamEx.of(values.parallelStream()).sliding(size, step).unwrap().collect(Collectors.toList());
+			assertEquals(size + "/" + step, expected, actual);
+
+			List<List<Integer>> expectedChunks = StreamEx.of(values.stream()).chunked(size).unwrap().collect(Collectors.toList());
+			List<List<Integer>> actualChunks = StreamEx.of(values.parallelStream()).chunked(size).unwrap().collect(Collectors.toList());
+			assertEquals(String.valueOf(size), expectedChunks, actualChunks);
+			assertEquals((10_007 + size - 1) / size, actualChunks.size());
+		}
+
+		// SUBSIZED な Stream なら、ウィンドウの位置で分割できること
+		Spliterator<List<Integer>> whole = StreamEx.of(IntStream.range(0, 10).boxed().parallel()).chunked(3).unwrap().spliterator();
+		Spliterator<List<Integer>> prefix = whole.trySplit();
+		List<List<Integer>> chunks = new ArrayList<>();
+		prefix.forEachRemaining(chunks::add);
+		whole.forEachRemaining(chunks::add);
+		assertEquals(Arrays.asList(Arrays.asList(0, 1, 2), Arrays.asList(3, 4, 5), Arrays.asList(6, 7, 8), Arrays.asList(9)), chunks);
+
+		// 分割位置がウィンドウの境界と揃わなくても、再帰的に分割でき、偏らないこと
+		for (int[] params : new int[][] { { 1000, 1000 }, { 1000, 300 } }) {
+			List<Integer> values = IntStream.range(0, 1 << 20).boxed().collect(Collectors.toList());
+			List<List<List<Integer>>> leaves = new ArrayList<>();
+			boolean partial = params[0] == params[1];
+			split(new WindowSpliterator<>(values.spliterator(), params[0], params[1], partial), 6, leaves);
+
+			List<List<Integer>> joined = new ArrayList<>();
+			leaves.forEach(joined::addAll);
+
+			List<List<Integer>> expected = (partial
+					? StreamEx.of(values.stream()).chunked(params[0])
+					: StreamEx.of(values.stream()).sliding(params[0], params[1])).unwrap().collect(Collectors.toList());
+
+			assertEquals(expected, joined);
+			assertEquals(64, leaves.size());
+
+			int largest = leaves.stream().mapToInt(List::size).max().getAsInt();
+			assertTrue(largest + "/" + expected.size(), largest <= expected.size() / 64 * 2);
+		}
+	}
+
+	/**
+	 * Spliterator を再帰的に分割し、末端ごとの要素をリストにします。
+	 *
+	 * @param spliterator Spliterator
+	 * @param depth 分割する深さ
+	 * @param leaves 末端ごとの要素を追加するリスト
+	 */
+	private static <T> void split(Spliterator<T> spliterator, int depth, List<List<T>> leaves) {
+		Spliterator<T> prefix = (depth > 0) ? spliterator.trySplit() : null;
+
+		if (prefix == null) {
+			List<T> leaf = new ArrayList<>();
+			spliterator.forEachRemaining(leaf::add);
+			leaves.add(leaf);
+			return;
+		}
+
+		split(prefix, depth - 1, leaves);
+		split(spliterator, depth - 1, leaves);
+	}
+
+	/**
+	 * 巨大なファイルの行を、並列に読みたい。
+	 */
+	@Test
+	public void testLines() throws Exception {
+		Path path = Files.createTempFile("satomaru", ".txt");
+
+		try {
+			// CRLF と、末尾の改行がない行
+			Files.write(path, "あいう\r\n\r\nabc\ndef".getBytes(StandardCharsets.UTF_8));
+			assertEquals(Arrays.asList("あいう", "", "abc", "def"), StreamEx.lines(path).unwrap().collect(Collectors.toList()));
+
+			// 空のファイル
+			Files.write(path, new byte[0]);
+			assertEquals(0, StreamEx.lines(path).unwrap().count());
+
+			// 区切り文字を指定したレコード
+			Files.write(path, "a,bc,,d,".getBytes(StandardCharsets.ISO_8859_1));
+			assertEquals(Arrays.asList("a", "bc", "", "d"), MappedRecords.strings(path, (byte) ',', StandardCharsets.ISO_8859_1).unwrap().collect(Collectors.toList()));
+
+			List<CharSequence> chars = MappedRecords.chars(path, (byte) ',').unwrap().collect(Collectors.toList());
+			assertEquals(2, chars.get(1).length());
+			assertEquals('c', chars.get(1).charAt(1));
+			assertEquals("c", chars.get(1).subSequence(1, 2).toString());
+			assertEquals(Arrays.asList(1, 2, 0, 1), MappedRecords.buffers(path, (byte) ',').unwrap().map(ByteBuffer::remaining).collect(Collectors.toList()));
+
+			// 小さなセグメントに分けても、並列でも、順次と同じ結果になること
+			List<String> expected = IntStream.range(0, 10_000).mapToObj(i -> "line" + i + ((i % 7 == 0) ? "\r" : "")).collect(Collectors.toList());
+			Files.write(path, String.join("\n", expected).getBytes(StandardCharsets.UTF_8));
+			List<String> trimmed = expected.stream().map(s -> s.replace("\r", "")).collect(Collectors.toList());
+			assertEquals(trimmed, StreamEx.lines(path).unwrap().collect(Collectors.toList()));
+
+			for (long segmentSize : new long[] { 1, 10, 4096, 1 << 20 }) {
+				RecordSpliterator spliterator = MappedRecords.spliterator(path, (byte) '\n', true, segmentSize);
+				List<String> actual = StreamSupport.stream(spliterator, true)
+						.map(b -> StandardCharsets.UTF_8.decode(b).toString())
+						.collect(Collectors.toList());
+
+				assertEquals(String.valueOf(segmentSize), trimmed, actual);
+			}
+
+			// セグメントの中でも、レコードの境界で分割できること
+			RecordSpliterator whole = MappedRecords.spliterator(path, (byte) '\n', true, MappedRecords.SEGMENT_SIZE);
+			Spliterator<ByteBuffer> prefix = whole.trySplit();
+			assertNotNull(prefix);
+			List<String> records = new ArrayList<>();
+			prefix.forEachRemaining(b -> records.add(StandardCharsets.UTF_8.decode(b).toString()));
+			whole.forEachRemaining(b -> records.add(StandardCharsets.UTF_8.decode(b).toString()));
+			assertEquals(trimmed, records);
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+	/**
+	 * 指定されたミリ秒だけ待機します。
+	 *
+	 * @param millis 待機するミリ秒
+	 */
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
 }
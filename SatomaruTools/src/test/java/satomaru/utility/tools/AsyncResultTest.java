@@ -0,0 +1,138 @@
+package satomaru.utility.tools;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * 非同期のリザルトのテスト。
+ */
+public class AsyncResultTest {
+
+	/** テストで用いる Executor。 */
+	private ExecutorService executor;
+
+	@Before
+	public void setUp() {
+		executor = Executors.newFixedThreadPool(2);
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdown();
+	}
+
+	/**
+	 * 呼び出し元のスレッドをブロックせずに処理されるテスト。
+	 */
+	@Test
+	public void testProcess() throws Exception {
+		CountDownLatch latch = new CountDownLatch(1);
+		AtomicReference<String> thread = new AtomicReference<>();
+
+		AsyncResult<Integer> result = AsyncResult.of(() -> {
+			latch.await();
+			return "12";
+		}, executor)
+				.process(Integer::valueOf)
+				.whenOk(n -> thread.set(Thread.currentThread().getName()));
+
+		// まだ処理中であること
+		assertFalse(result.isDone());
+		assertFalse(result.poll().isPresent());
+
+		latch.countDown();
+		assertEquals(Integer.valueOf(12), result.join().unwrap());
+		assertNotEquals(Thread.currentThread().getName(), thread.get());
+	}
+
+	/**
+	 * 例外が発生した場合のテスト。
+	 */
+	@Test
+	public void testNg() {
+		AtomicReference<IOException> caught = new AtomicReference<>();
+		AtomicReference<Exception> any = new AtomicReference<>();
+
+		Result<Integer> result = AsyncResult.<String> of(() -> {
+			throw new IOException("io");
+		}, executor)
+				.process(Integer::valueOf)
+				.when(IllegalStateException.class, e -> fail())
+				.when(IOException.class, caught::set)
+				.whenNg(any::set)
+				.whenOk(n -> fail())
+				.join();
+
+		assertTrue(result.isNg());
+		assertEquals("io", caught.get().getMessage());
+		assertSame(caught.get(), any.get());
+	}
+
+	/**
+	 * 評価する関数で例外が発生しても、Future が例外で完了しないテスト。
+	 */
+	@Test
+	public void testConsumerThrows() {
+		Result<String> result = AsyncResult.of(() -> "ok", executor)
+				.whenOk(s -> {
+					throw new IllegalStateException("consumer");
+				})
+				.join();
+
+		assertTrue(result.isNg());
+		assertEquals("consumer", result.exception().get().getMessage());
+	}
+
+	/**
+	 * Executor が受け付けない場合に、Future が例外で完了しないテスト。
+	 */
+	@Test
+	public void testRejected() {
+		ExecutorService stopped = Executors.newSingleThreadExecutor();
+		stopped.shutdown();
+
+		// 作成時
+		Result<String> created = AsyncResult.of(() -> "ok", stopped).join();
+		assertTrue(created.exception().get() instanceof RejectedExecutionException);
+
+		// 後続の処理
+		Result<Integer> processed = AsyncResult.completed(Result.of(() -> "12"), stopped)
+				.process(Integer::valueOf)
+				.join();
+		assertTrue(processed.exception().get() instanceof RejectedExecutionException);
+
+		// 評価
+		Result<String> evaluated = AsyncResult.completed(Result.of(() -> "ok"), stopped)
+				.whenOk(s -> fail())
+				.join();
+		assertTrue(evaluated.exception().get() instanceof RejectedExecutionException);
+	}
+
+	/**
+	 * 既定の Executor で処理されるテスト。
+	 */
+	@Test
+	public void testDefaultExecutor() {
+		assertEquals("ok", AsyncResult.of(() -> "ok").join().value().get());
+	}
+
+	/**
+	 * 値が異なることを検査します（JUnit 4.10 には assertNotEquals がない為）。
+	 *
+	 * @param unexpected 期待しない値
+	 * @param actual 実際の値
+	 */
+	private static void assertNotEquals(Object unexpected, Object actual) {
+		assertFalse(String.valueOf(actual), unexpected.equals(actual));
+	}
+}
@@ -0,0 +1,196 @@
+package satomaru.utility.tools;
+
+import static org.junit.Assert.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import satomaru.utility.stream.StreamEx;
+
+/**
+ * 処理結果をキャッシュする Processor のテスト。
+ */
+public class CachedProcessorTest {
+
+	/**
+	 * 同じ値を再度処理しないテスト。
+	 */
+	@Test
+	public void testHit() throws Exception {
+		AtomicInteger count = new AtomicInteger();
+		CachedProcessor<String, Integer> processor = CachedProcessor.<String, Integer> of(s -> {
+			count.incrementAndGet();
+			return Integer.valueOf(s);
+		}).build();
+
+		assertEquals(Integer.valueOf(1), processor.process("1"));
+		assertEquals(Integer.valueOf(1), processor.process("1"));
+		assertEquals(Integer.valueOf(2), processor.process("2"));
+
+		assertEquals(2, count.get());
+		assertEquals(1, processor.hitCount());
+		assertEquals(2, processor.missCount());
+		assertEquals(2, processor.size());
+	}
+
+	/**
+	 * 上限を超えた場合、最も長く参照されていない値を破棄するテスト。
+	 */
+	@Test
+	public void testEviction() throws Exception {
+		CachedProcessor<Integer, Integer> processor = CachedProcessor.<Integer, Integer> of(n -> n * 2)
+				.maximumSize(2)
+				.build();
+
+		processor.process(1);
+		processor.process(2);
+		processor.process(1);
+		processor.process(3);
+
+		assertEquals(1, processor.evictionCount());
+		assertEquals(2, processor.size());
+
+		// 2 が破棄されて 1 は残っていること
+		processor.process(1);
+		assertEquals(2, processor.hitCount());
+		processor.process(2);
+		assertEquals(4, processor.missCount());
+	}
+
+	/**
+	 * 例外を保持する時間のテスト。
+	 */
+	@Test
+	public void testNegativeCache() throws Exception {
+		AtomicInteger count = new AtomicInteger();
+		Failure failure = Failure.constant("E01", "bad");
+		CachedProcessor<String, Integer> processor = CachedProcessor.<String, Integer> of(s -> {
+			count.incrementAndGet();
+			throw failure;
+		}).cacheFailures(Duration.ofMillis(50)).build();
+
+		assertSame(failure, Result.of("x", processor).exception().get());
+		assertSame(failure, Result.of("x", processor).exception().get());
+		assertEquals(1, count.get());
+
+		Thread.sleep(100);
+		assertTrue(Result.of("x", processor).isNg());
+		assertEquals(2, count.get());
+	}
+
+	/**
+	 * 例外を保持しない（既定の）場合のテスト。
+	 */
+	@Test
+	public void testNoNegativeCache() {
+		AtomicInteger count = new AtomicInteger();
+		CachedProcessor<String, Integer> processor = CachedProcessor.<String, Integer> of(s -> {
+			count.incrementAndGet();
+			return Integer.valueOf(s);
+		}).build();
+
+		assertTrue(Result.of("x", processor).isNg());
+		assertTrue(Result.of("x", processor).isNg());
+		assertEquals(2, count.get());
+		assertEquals(0, processor.size());
+	}
+
+	/**
+	 * 保持する時間を検査するテスト。
+	 */
+	@Test
+	public void testTtl() throws Exception {
+		CachedProcessor.Builder<String, Integer> builder = CachedProcessor.<String, Integer> of(Integer::valueOf);
+
+		for (Duration ttl : new Duration[] { Duration.ofNanos(-1), Duration.ofSeconds(-1) }) {
+			try {
+				builder.expireAfterWrite(ttl);
+				fail();
+			} catch (IllegalArgumentException e) {
+				assertEquals("ttl: " + ttl, e.getMessage());
+			}
+
+			try {
+				builder.cacheFailures(ttl);
+				fail();
+			} catch (IllegalArgumentException e) {
+				assertEquals("ttl: " + ttl, e.getMessage());
+			}
+		}
+
+		// ナノ秒で表せない時間は、無期限として扱う
+		CachedProcessor<String, Integer> processor = builder
+				.expireAfterWrite(Duration.ofSeconds(Long.MAX_VALUE))
+				.cacheFailures(Duration.ofDays(365L * 1000))
+				.build();
+
+		assertEquals(Integer.valueOf(1), Result.of("1", processor).unwrap());
+		assertTrue(Result.of("x", processor).isNg());
+		assertEquals(2, processor.size());
+	}
+
+	/**
+	 * 元の関数がnullを返却した場合も、そのまま返却して保持するテスト。
+	 */
+	@Test
+	public void testNullResult() throws Exception {
+		AtomicInteger count = new AtomicInteger();
+		CachedProcessor<String, Integer> processor = CachedProcessor.<String, Integer> of(s -> {
+			count.incrementAndGet();
+			return null;
+		}).build();
+
+		assertNull(processor.process("x"));
+		assertNull(processor.process("x"));
+		assertEquals(1, count.get());
+		assertEquals(1, processor.hitCount());
+	}
+
+	/**
+	 * 処理結果を保持する時間のテスト。
+	 */
+	@Test
+	public void testExpireAfterWrite() throws Exception {
+		CachedProcessor<Integer, Integer> processor = CachedProcessor.<Integer, Integer> of(n -> n + 1)
+				.expireAfterWrite(Duration.ofMillis(50))
+				.build();
+
+		processor.process(1);
+		processor.process(1);
+		Thread.sleep(100);
+		processor.process(1);
+
+		assertEquals(1, processor.hitCount());
+		assertEquals(2, processor.missCount());
+	}
+
+	/**
+	 * 並列 Stream から使用するテスト。
+	 */
+	@Test
+	public void testParallel() {
+		CachedProcessor<Integer, Integer> processor = CachedProcessor.<Integer, Integer> of(n -> n * n)
+				.maximumSize(64)
+				.build();
+
+		List<Integer> values = StreamEx.of(IntStream.range(0, 100_000).parallel().map(i -> i % 100).boxed())
+				.process(processor)
+				.mapToEx()
+				.unwrap()
+				.map(r -> r.value().get())
+				.collect(Collectors.toList());
+
+		for (int i = 0; i < values.size(); i++) {
+			assertEquals(Integer.valueOf((i % 100) * (i % 100)), values.get(i));
+		}
+
+		assertEquals(100_000, processor.hitCount() + processor.missCount());
+		assertTrue(processor.size() <= 64);
+		assertTrue(processor.evictionCount() > 0);
+	}
+}
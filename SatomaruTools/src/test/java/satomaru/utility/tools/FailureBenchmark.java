@@ -0,0 +1,99 @@
+package satomaru.utility.tools;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import satomaru.utility.stream.StreamEx;
+
+/**
+ * 失敗が多いストリームで、例外の種類ごとのスループットを計測するベンチマーク。
+ *
+ * <p>
+ * 全体の半分の要素が失敗します。
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FailureBenchmark {
+
+	/** 要素数。 */
+	private static final int SIZE = 10_000;
+
+	/** 定数としての失敗。 */
+	private static final Failure ODD = Failure.constant("ODD", "odd value");
+
+	@Benchmark
+	public long fullException() {
+		return count(n -> {
+			if (n % 2 != 0) {
+				throw new IllegalArgumentException("odd value");
+			}
+
+			return n;
+		});
+	}
+
+	@Benchmark
+	public long failure() {
+		return count(n -> {
+			if (n % 2 != 0) {
+				throw new Failure("ODD", "odd value");
+			}
+
+			return n;
+		});
+	}
+
+	@Benchmark
+	public long constantFailure() {
+		return count(n -> {
+			if (n % 2 != 0) {
+				throw ODD;
+			}
+
+			return n;
+		});
+	}
+
+	/**
+	 * 要素を処理し、失敗した数を数えます。
+	 *
+	 * @param processor 処理する関数
+	 * @return 失敗した数
+	 */
+	private static long count(Result.Processor<Integer, Integer> processor) {
+		return StreamEx.of(IntStream.range(0, SIZE).boxed())
+				.process(processor)
+				.mapToEx()
+				.unwrap()
+				.filter(Result::isNg)
+				.count();
+	}
+
+	/**
+	 * ベンチマークを実行します。
+	 *
+	 * @param args 使用しません
+	 * @throws RunnerException ベンチマークの実行に失敗した場合
+	 */
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(FailureBenchmark.class.getSimpleName()).build()).run();
+	}
+}
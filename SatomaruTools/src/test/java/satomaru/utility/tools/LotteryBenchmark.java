@@ -0,0 +1,90 @@
+package satomaru.utility.tools;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 乱数の生成方法ごとに、標準的なロッテリーのスループットを計測するベンチマーク。
+ *
+ * <p>
+ * {@code mvn test-compile} の後、テストのクラスパスで {@link #main(String[])} を実行してください。
+ * スレッド数を1から CPU 数まで倍々に増やしながら計測します。
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LotteryBenchmark {
+
+	/** java.util.Random を共有する（従来の実装と同じ）ロッテリー。 */
+	private Lottery<Integer> shared;
+
+	/** ThreadLocalRandom を用いるロッテリー。 */
+	private Lottery<Integer> threadLocal;
+
+	/** SplittableRandom をスレッドごとに分割するロッテリー。 */
+	private Lottery<Integer> splittable;
+
+	/**
+	 * ロッテリーを準備します。
+	 */
+	@Setup
+	public void setUp() {
+		List<Integer> values = IntStream.range(0, 1000).boxed().collect(Collectors.toList());
+		shared = Lottery.build(values).random(Randomizer.of(new java.util.Random())).standard();
+		threadLocal = Lottery.build(values).random(Randomizer.threadLocal()).standard();
+		splittable = Lottery.build(values).random(Randomizer.splittable(42L)).standard();
+	}
+
+	@Benchmark
+	public Optional<Integer> shared() {
+		return shared.draw();
+	}
+
+	@Benchmark
+	public Optional<Integer> threadLocal() {
+		return threadLocal.draw();
+	}
+
+	@Benchmark
+	public Optional<Integer> splittable() {
+		return splittable.draw();
+	}
+
+	/**
+	 * スレッド数を変えながらベンチマークを実行します。
+	 *
+	 * @param args 使用しません
+	 * @throws RunnerException ベンチマークの実行に失敗した場合
+	 */
+	public static void main(String[] args) throws RunnerException {
+		int processors = Runtime.getRuntime().availableProcessors();
+
+		for (int threads = 1; threads <= processors; threads *= 2) {
+			new Runner(new OptionsBuilder()
+					.include(LotteryBenchmark.class.getSimpleName())
+					.threads(threads)
+					.build()).run();
+		}
+	}
+}
@@ -0,0 +1,504 @@
+package satomaru.utility.tools;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+/**
+ * ロッテリーのテスト。
+ */
+public class LotteryTest {
+
+	/** 重み付きのテストで用いる列挙型。 */
+	enum Rarity {
+		COMMON, RARE, SUPER_RARE, NONE
+	}
+
+	/** 分布を検査する時の抽選回数。 */
+	private static final int DRAWS = 200_000;
+
+	/**
+	 * まとめて選択した要素に、重複がないテスト。
+	 */
+	@Test
+	public void testDrawMany() {
+		List<Integer> values = IntStream.range(0, 1000).boxed().collect(Collectors.toList());
+		Lottery.Builder<Integer> builder = Lottery.build(values);
+
+		for (int k : new int[] { 0, 1, 10, 250, 251, 999, 1000, 2000 }) {
+			List<Integer> drawn = builder.drawMany(k);
+			assertEquals(Math.min(k, 1000), drawn.size());
+			assertEquals(drawn.size(), new HashSet<>(drawn).size());
+			assertTrue(values.containsAll(drawn));
+		}
+	}
+
+	/**
+	 * まとめて選択した要素が、一様に分布するテスト。
+	 */
+	@Test
+	public void testDrawManyUniform() {
+		Lottery.Builder<Integer> builder = Lottery.build(0, 1, 2, 3, 4, 5, 6, 7);
+		int[] firsts = new int[8];
+		int[] all = new int[8];
+
+		for (int i = 0; i < DRAWS / 2; i++) {
+			List<Integer> drawn = builder.drawMany(2);
+			firsts[drawn.get(0)]++;
+			drawn.forEach(n -> all[n]++);
+		}
+
+		double[] expected = new double[8];
+		Arrays.fill(expected, 0.125);
+		assertDistribution(expected, firsts);
+		assertDistribution(expected, all);
+	}
+
+	/**
+	 * シードを固定した場合に、抽選結果が再現されるテスト。
+	 */
+	@Test
+	public void testSeeded() {
+		List<Integer> values = IntStream.range(0, 100).boxed().collect(Collectors.toList());
+		List<Integer> first = drawAll(Lottery.build(values).random(Randomizer.seeded(1234L)).lazyBox());
+		List<Integer> second = drawAll(Lottery.build(values).random(Randomizer.seeded(1234L)).lazyBox());
+		assertEquals(first, second);
+
+		Lottery<Integer> standard1 = Lottery.build(values).random(Randomizer.seeded(99L)).standard();
+		Lottery<Integer> standard2 = Lottery.build(values).random(Randomizer.seeded(99L)).standard();
+
+		for (int i = 0; i < 100; i++) {
+			assertEquals(standard1.draw(), standard2.draw());
+		}
+	}
+
+	/**
+	 * 重み付きのロッテリーが、重みの通りに分布するテスト。
+	 */
+	@Test
+	public void testWeighted() {
+		Lottery<Integer> lottery = Lottery.build(0, 1, 2, 3).weighted(1, 2, 3, 4);
+		int[] counts = new int[4];
+
+		for (int i = 0; i < DRAWS; i++) {
+			counts[lottery.draw().get()]++;
+		}
+
+		assertDistribution(new double[] { 0.1, 0.2, 0.3, 0.4 }, counts);
+	}
+
+	/**
+	 * 列挙型の重み付きのロッテリーで、重みが0の要素は選ばれないテスト。
+	 */
+	@Test
+	public void testWeightedEnum() {
+		EnumMap<Rarity, Integer> weights = new EnumMap<>(Rarity.class);
+		weights.put(Rarity.COMMON, 80);
+		weights.put(Rarity.RARE, 15);
+		weights.put(Rarity.SUPER_RARE, 5);
+
+		Lottery<Rarity> lottery = Lottery.build(Rarity.class).weighted(weights);
+		int[] counts = new int[Rarity.values().length];
+
+		for (int i = 0; i < DRAWS; i++) {
+			counts[lottery.draw().get().ordinal()]++;
+		}
+
+		assertDistribution(new double[] { 0.8, 0.15, 0.05, 0 }, counts);
+		assertEquals(0, counts[Rarity.NONE.ordinal()]);
+	}
+
+	/**
+	 * 重みの数が要素の数と異なる場合のテスト。
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testWeightedMismatch() {
+		Lottery.build("a", "b").weighted(1);
+	}
+
+	/**
+	 * 重みを後から変更できるロッテリーのテスト。
+	 */
+	@Test
+	public void testDynamic() {
+		DynamicLottery<Integer> lottery = Lottery.build(0, 1, 2).dynamic(1, 1, 1);
+		lottery.setWeight(0, 0);
+		lottery.setWeight(2, 3);
+		assertTrue(lottery.add(3, 4));
+		assertFalse(lottery.add(3, 1));
+		assertTrue(lottery.remove(1));
+		assertFalse(lottery.remove(1));
+		assertEquals(3, lottery.size());
+		assertEquals(7, lottery.totalWeight(), 1e-9);
+
+		int[] counts = new int[4];
+
+		for (int i = 0; i < DRAWS; i++) {
+			counts[lottery.draw().get()]++;
+		}
+
+		assertDistribution(new double[] { 0, 0, 3.0 / 7, 4.0 / 7 }, counts);
+	}
+
+	/**
+	 * 重みを後から変更できるロッテリーで、要素を増やしていくテスト。
+	 */
+	@Test
+	public void testDynamicGrow() {
+		DynamicLottery<Integer> lottery = Lottery.<Integer> build().dynamic();
+		assertFalse(lottery.draw().isPresent());
+
+		for (int i = 0; i < 100; i++) {
+			lottery.add(i, (i == 42) ? 1 : 0);
+		}
+
+		assertEquals(Integer.valueOf(42), lottery.draw().get());
+		lottery.setWeight(42, 0);
+		assertFalse(lottery.draw().isPresent());
+	}
+
+	/**
+	 * 重みを後から変更できるロッテリーで、全ての重みを0に戻した時に止まらないテスト。
+	 */
+	@Test(timeout = 2000)
+	public void testDynamicResetToZero() {
+		DynamicLottery<String> lottery = Lottery.build("a", "b", "c").dynamic(0.1, 0.2, 0.7);
+		lottery.setWeight("a", 0);
+		lottery.setWeight("b", 0);
+		lottery.setWeight("c", 0);
+		assertFalse(lottery.draw().isPresent());
+		assertEquals(0, lottery.totalWeight(), 0);
+
+		lottery.setWeight("b", 0.3);
+		assertEquals("b", lottery.draw().get());
+
+		lottery.remove("b");
+		assertFalse(lottery.draw().isPresent());
+	}
+
+	/**
+	 * 少しずつシャッフルするボックスタイプのロッテリーで、全ての要素がちょうど1回ずつ引かれるテスト。
+	 */
+	@Test
+	public void testLazyBox() {
+		String[] values = { "a", "b", "c", "d", "e" };
+		Lottery<String> lottery = Lottery.build(values).lazyBox();
+		HashSet<String> drawn = new HashSet<>();
+
+		for (int i = 0; i < values.length; i++) {
+			assertTrue(drawn.add(lottery.draw().get()));
+		}
+
+		assertFalse(lottery.draw().isPresent());
+		assertEquals(new HashSet<>(Arrays.asList(values)), drawn);
+		assertArrayEquals(new String[] { "a", "b", "c", "d", "e" }, values);
+	}
+
+	/**
+	 * 少しずつシャッフルするボックスタイプのロッテリーで、最初の1回が一様に分布するテスト。
+	 */
+	@Test
+	public void testLazyBoxUniform() {
+		Lottery.Builder<Integer> builder = Lottery.build(0, 1, 2, 3);
+		int[] counts = new int[4];
+
+		for (int i = 0; i < DRAWS; i++) {
+			counts[builder.lazyBox().draw().get()]++;
+		}
+
+		assertDistribution(new double[] { 0.25, 0.25, 0.25, 0.25 }, counts);
+	}
+
+	/**
+	 * 複数のスレッドから同時に引いても、重複も欠落もしないテスト。
+	 */
+	@Test
+	public void testConcurrentBox() throws Exception {
+		int size = 200_000;
+		int threads = 8;
+		List<Integer> values = IntStream.range(0, size).boxed().collect(Collectors.toList());
+		Lottery<Integer> lottery = Lottery.build(values).concurrentBox();
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+
+		try {
+			List<Future<List<Integer>>> futures = new ArrayList<>();
+
+			for (int i = 0; i < threads; i++) {
+				Callable<List<Integer>> task = () -> {
+					List<Integer> drawn = new ArrayList<>();
+					start.await();
+					Optional<Integer> value;
+
+					while ((value = lottery.draw()).isPresent()) {
+						drawn.add(value.get());
+					}
+
+					return drawn;
+				};
+
+				futures.add(executor.submit(task));
+			}
+
+			start.countDown();
+			HashSet<Integer> all = new HashSet<>();
+			int total = 0;
+
+			for (Future<List<Integer>> future : futures) {
+				List<Integer> drawn = future.get();
+				total += drawn.size();
+				all.addAll(drawn);
+			}
+
+			assertEquals(size, total);
+			assertEquals(new HashSet<>(values), all);
+			assertFalse(lottery.draw().isPresent());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * int のロッテリーのテスト。
+	 */
+	@Test
+	public void testIntLottery() {
+		IntLottery standard = IntLottery.range(10, 14).standard();
+		int[] counts = new int[4];
+
+		for (int i = 0; i < DRAWS; i++) {
+			counts[standard.drawInt() - 10]++;
+		}
+
+		assertDistribution(new double[] { 0.25, 0.25, 0.25, 0.25 }, counts);
+
+		IntLottery weighted = IntLottery.build(0, 1, 2).weighted(0, 1, 3);
+		counts = new int[3];
+
+		for (int i = 0; i < DRAWS; i++) {
+			counts[weighted.drawInt()]++;
+		}
+
+		assertDistribution(new double[] { 0, 0.25, 0.75 }, counts);
+
+		IntLottery box = IntLottery.range(-5, 5).box();
+		HashSet<Integer> drawn = new HashSet<>();
+
+		while (box.hasNext()) {
+			assertTrue(drawn.add(box.drawInt()));
+		}
+
+		assertEquals(IntStream.range(-5, 5).boxed().collect(Collectors.toSet()), drawn);
+		assertFalse(IntLottery.range(0, 0).standard().hasNext());
+	}
+
+	/**
+	 * 空の int のロッテリーから引いた場合のテスト。
+	 */
+	@Test(expected = NoSuchElementException.class)
+	public void testIntLotteryEmpty() {
+		IntLottery box = IntLottery.build(7).box();
+		assertEquals(7, box.drawInt());
+		box.drawInt();
+	}
+
+	/**
+	 * long のロッテリーのテスト。
+	 */
+	@Test
+	public void testLongLottery() {
+		long base = 1L << 40;
+		LongLottery standard = LongLottery.range(base, base + 3).standard();
+		int[] counts = new int[3];
+
+		for (int i = 0; i < DRAWS; i++) {
+			counts[(int) (standard.drawLong() - base)]++;
+		}
+
+		assertDistribution(new double[] { 1.0 / 3, 1.0 / 3, 1.0 / 3 }, counts);
+
+		LongLottery box = LongLottery.build(base, base + 1, base + 2).box();
+		HashSet<Long> drawn = new HashSet<>();
+
+		while (box.hasNext()) {
+			assertTrue(drawn.add(box.drawLong()));
+		}
+
+		assertEquals(new HashSet<>(Arrays.asList(base, base + 1, base + 2)), drawn);
+	}
+
+	/**
+	 * 擬似ランダム置換が、小さな範囲で全単射になるテスト。
+	 */
+	@Test
+	public void testPermutationBijective() {
+		for (long size = 0; size <= 300; size++) {
+			PermutationLottery lottery = LongLottery.range(100, 100 + size).permutation(size * 31);
+			HashSet<Long> drawn = new HashSet<>();
+
+			while (lottery.hasNext()) {
+				long value = lottery.drawLong();
+				assertTrue(value >= 100 && value < 100 + size);
+				assertTrue(drawn.add(value));
+			}
+
+			assertEquals(size, drawn.size());
+		}
+	}
+
+	/**
+	 * 擬似ランダム置換のシャードと再開のテスト。
+	 */
+	@Test
+	public void testPermutationShard() {
+		PermutationLottery whole = LongLottery.range(0, 1000).permutation(42L);
+		List<Long> expected = new ArrayList<>();
+
+		while (whole.hasNext()) {
+			expected.add(whole.drawLong());
+		}
+
+		List<Long> sharded = new ArrayList<>();
+
+		for (int i = 0; i < 7; i++) {
+			PermutationLottery shard = LongLottery.range(0, 1000).permutation(42L).shard(i, 7);
+
+			while (shard.hasNext()) {
+				sharded.add(shard.drawLong());
+			}
+		}
+
+		assertEquals(expected, sharded);
+
+		PermutationLottery first = LongLottery.range(0, 1000).permutation(42L);
+
+		for (int i = 0; i < 123; i++) {
+			first.drawLong();
+		}
+
+		PermutationLottery resumed = first.slice(first.position(), 1000);
+		assertEquals(expected.get(123).longValue(), resumed.drawLong());
+		assertEquals(876, resumed.remaining());
+	}
+
+	/**
+	 * 擬似ランダム置換が、巨大な範囲でも扱えるテスト。
+	 */
+	@Test
+	public void testPermutationHuge() {
+		long size = 1L << 40;
+		PermutationLottery lottery = LongLottery.range(0, size).permutation(7L);
+		HashSet<Long> drawn = new HashSet<>();
+
+		for (int i = 0; i < 10_000; i++) {
+			long value = lottery.drawLong();
+			assertTrue(value >= 0 && value < size);
+			assertTrue(drawn.add(value));
+		}
+	}
+
+	/**
+	 * 並列シャッフルで、全ての並び順が一様に現れるテスト。
+	 */
+	@Test
+	public void testParallelShuffleUniform() {
+		List<String> permutations = new ArrayList<>();
+		permute("", "abcd", permutations);
+		int[] counts = new int[permutations.size()];
+		Randomizer random = Randomizer.threadLocal();
+
+		for (int i = 0; i < DRAWS; i++) {
+			Object[] array = { "a", "b", "c", "d" };
+
+			// 要素数1まで分割させて、マージを必ず通す
+			ParallelShuffle.shuffle(array, random, 1);
+			counts[permutations.indexOf(Arrays.stream(array).map(String.class::cast).collect(Collectors.joining()))]++;
+		}
+
+		double[] expected = new double[permutations.size()];
+		Arrays.fill(expected, 1.0 / permutations.size());
+		assertDistribution(expected, counts);
+	}
+
+	/**
+	 * 並列にシャッフルするボックスタイプのロッテリーで、重複も欠落もしないテスト。
+	 */
+	@Test
+	public void testParallelBox() {
+		int size = ParallelShuffle.THRESHOLD * 4 + 3;
+		List<Integer> values = IntStream.range(0, size).boxed().collect(Collectors.toList());
+		List<Integer> drawn = drawAll(Lottery.build(values).parallelBox());
+		assertEquals(size, drawn.size());
+		assertEquals(new HashSet<>(values), new HashSet<>(drawn));
+		assertFalse(values.equals(drawn));
+	}
+
+	/**
+	 * 文字列の全ての並び順を列挙します。
+	 *
+	 * @param prefix 確定した部分
+	 * @param rest 残りの文字
+	 * @param result 並び順を格納するリスト
+	 */
+	private static void permute(String prefix, String rest, List<String> result) {
+		if (rest.isEmpty()) {
+			result.add(prefix);
+			return;
+		}
+
+		for (int i = 0; i < rest.length(); i++) {
+			permute(prefix + rest.charAt(i), rest.substring(0, i) + rest.substring(i + 1), result);
+		}
+	}
+
+	/**
+	 * ロッテリーから、空になるまで引きます。
+	 *
+	 * @param lottery ロッテリー
+	 * @return 引いた要素
+	 */
+	private static <T> List<T> drawAll(Lottery<T> lottery) {
+		List<T> result = new ArrayList<>();
+		Optional<T> value;
+
+		while ((value = lottery.draw()).isPresent()) {
+			result.add(value.get());
+		}
+
+		return result;
+	}
+
+	/**
+	 * 抽選結果が期待する分布に近いことを検査します。
+	 *
+	 * @param expected 期待する確率
+	 * @param counts 各要素が選ばれた回数
+	 */
+	static void assertDistribution(double[] expected, int[] counts) {
+		long total = 0;
+
+		for (int count : counts) {
+			total += count;
+		}
+
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals("index " + i, expected[i], (double) counts[i] / total, 0.01);
+		}
+	}
+}
@@ -0,0 +1,119 @@
+package satomaru.utility.tools;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import satomaru.utility.stream.StreamEx;
+
+/**
+ * ステージごとの記録のテスト。
+ */
+public class MetricsTest {
+
+	/**
+	 * ステージごとに件数と例外を記録するテスト。
+	 */
+	@Test
+	public void testStages() {
+		Metrics metrics = Metrics.create();
+
+		StreamEx.of("1", "x", "3", "", "-5")
+				.process(Integer::valueOf, metrics.stage("parse"))
+				.process(n -> {
+					if (n < 0) {
+						throw new Failure("NEGATIVE", "negative");
+					}
+
+					return n * 2;
+				}, metrics.stage("double"))
+				.partition();
+
+		Map<String, Metrics.Snapshot> snapshots = metrics.snapshot();
+		assertEquals(Arrays.asList("parse", "double"), Arrays.asList(snapshots.keySet().toArray()));
+
+		Metrics.Snapshot parse = snapshots.get("parse");
+		assertEquals(5, parse.getCount());
+		assertEquals(3, parse.getOkCount());
+		assertEquals(2, parse.getNgCount());
+		assertEquals(Long.valueOf(2), parse.getErrorCounts().get(NumberFormatException.class.getName()));
+
+		Metrics.Snapshot twice = snapshots.get("double");
+		assertEquals(3, twice.getCount());
+		assertEquals(2, twice.getOkCount());
+		assertEquals(2, twice.getSkippedCount());
+		assertEquals(Long.valueOf(1), twice.getErrorCounts().get(Failure.class.getName()));
+	}
+
+	/**
+	 * 処理時間のパーセンタイル値のテスト。
+	 */
+	@Test
+	public void testPercentile() {
+		Metrics.Stage stage = Metrics.create().stage("latency");
+		Result<String> ok = Result.ok("ok");
+
+		// 1μs から 1000μs まで、1μs 刻み
+		IntStream.rangeClosed(1, 1000).forEach(i -> stage.record(i * 1000L, ok));
+
+		Metrics.Snapshot snapshot = stage.snapshot();
+		assertEquals(1000, snapshot.getCount());
+		assertEquals(1_000_000, snapshot.getMaxNanos());
+		assertEquals(500_500, snapshot.getMeanNanos(), 0.001);
+		assertWithin(500_000, snapshot.getPercentileNanos(50));
+		assertWithin(990_000, snapshot.getPercentileNanos(99));
+		assertEquals(1_000_000, snapshot.getPercentileNanos(100));
+	}
+
+	/**
+	 * ヒストグラムのバケットが値の昇順であるテスト。
+	 */
+	@Test
+	public void testHistogramBuckets() {
+		int previous = -1;
+
+		for (long value : new long[] { 0, 1, 31, 32, 33, 63, 64, 65, 1000, 1L << 40, Long.MAX_VALUE }) {
+			int bucket = Metrics.Histogram.bucket(value);
+			assertTrue(bucket >= previous && bucket < Metrics.Histogram.BUCKETS);
+			assertTrue(Metrics.Histogram.highest(bucket) >= value);
+			previous = bucket;
+		}
+
+		assertEquals(Long.MAX_VALUE, Metrics.Histogram.highest(Metrics.Histogram.BUCKETS - 1));
+	}
+
+	/**
+	 * 記録しない場合のテスト。
+	 */
+	@Test
+	public void testDisabled() {
+		Metrics metrics = Metrics.disabled();
+		Metrics.Stage stage = metrics.stage("parse");
+		assertFalse(stage.isEnabled());
+		assertSame(stage, metrics.stage("format"));
+
+		long count = StreamEx.of("1", "x")
+				.process(Integer::valueOf, stage)
+				.partition()
+				.getFirst()
+				.size();
+
+		assertEquals(1, count);
+		assertEquals(0, stage.snapshot().getCount());
+		assertTrue(metrics.snapshot().isEmpty());
+	}
+
+	/**
+	 * 相対誤差3%以内であることを検査します。
+	 *
+	 * @param expected 期待する値
+	 * @param actual 実際の値
+	 */
+	private static void assertWithin(long expected, long actual) {
+		assertTrue(expected + " : " + actual, Math.abs(actual - expected) <= expected * 0.03);
+	}
+}
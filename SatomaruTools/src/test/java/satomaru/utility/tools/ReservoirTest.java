@@ -0,0 +1,95 @@
+package satomaru.utility.tools;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+/**
+ * リザーバーのテスト。
+ */
+public class ReservoirTest {
+
+	/** 分布を検査する時の試行回数。 */
+	private static final int TRIALS = 20_000;
+
+	/**
+	 * 要素の数が選択する数に満たない場合のテスト。
+	 */
+	@Test
+	public void testFewer() {
+		List<Integer> actual = Reservoir.sample(IntStream.range(0, 3).iterator(), 5);
+		assertEquals(3, actual.size());
+		assertTrue(actual.containsAll(Arrays.asList(0, 1, 2)));
+		assertTrue(Reservoir.sample(IntStream.range(0, 3).iterator(), 0).isEmpty());
+	}
+
+	/**
+	 * 選択された要素が一様に分布するテスト。
+	 */
+	@Test
+	public void testUniform() {
+		int[] counts = new int[100];
+
+		for (int i = 0; i < TRIALS; i++) {
+			Reservoir.sample(IntStream.range(0, 100).iterator(), 5).forEach(n -> counts[n]++);
+		}
+
+		assertUniform(counts, TRIALS * 5);
+	}
+
+	/**
+	 * 統合したリザーバーが、連結した列から選択したものと同じ分布になるテスト。
+	 */
+	@Test
+	public void testMerge() {
+		int[] counts = new int[100];
+
+		for (int i = 0; i < TRIALS; i++) {
+			Reservoir<Integer> first = new Reservoir<>(5);
+			Reservoir<Integer> second = new Reservoir<>(5);
+			IntStream.range(0, 3).forEach(first::add);
+			IntStream.range(3, 100).forEach(second::add);
+
+			Reservoir<Integer> merged = first.merge(second);
+			assertEquals(100, merged.count());
+			merged.values().forEach(n -> counts[n]++);
+		}
+
+		assertUniform(counts, TRIALS * 5);
+	}
+
+	/**
+	 * 並列 Stream から選択するテスト。
+	 */
+	@Test
+	public void testParallel() {
+		int[] counts = new int[100];
+
+		for (int i = 0; i < TRIALS; i++) {
+			List<Integer> actual = Reservoir.sample(IntStream.range(0, 100).boxed().parallel(), 5);
+			assertEquals(5, actual.size());
+			assertEquals(5, actual.stream().distinct().count());
+			actual.forEach(n -> counts[n]++);
+		}
+
+		assertUniform(counts, TRIALS * 5);
+	}
+
+	/**
+	 * 各要素が選択された回数が、一様分布に近いことを検査します。
+	 *
+	 * @param counts 各要素が選択された回数
+	 * @param total 選択された回数の合計
+	 */
+	private static void assertUniform(int[] counts, int total) {
+		double expected = (double) total / counts.length;
+
+		for (int i = 0; i < counts.length; i++) {
+			assertEquals("index " + i, expected, counts[i], expected * 0.15);
+		}
+	}
+}
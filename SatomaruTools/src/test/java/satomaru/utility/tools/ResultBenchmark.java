@@ -0,0 +1,131 @@
+package satomaru.utility.tools;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import satomaru.utility.tools.Result.Invoker;
+import satomaru.utility.tools.Result.Processor;
+
+/**
+ * リザルトの処理にかかる時間と、生成されるオブジェクトを計測するベンチマーク。
+ *
+ * <p>
+ * 比較の為に、Optional を2つ保持していた以前の実装を {@link LegacyResult} として残しています。
+ * 生成されるオブジェクトの量は、GC プロファイラ（{@code -prof gc}）の gc.alloc.rate.norm で確認してください。
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResultBenchmark {
+
+	/** 処理対象。 */
+	private Integer value = 42;
+
+	/** 例外。 */
+	private final Exception failure = new Exception("failure");
+
+	@Benchmark
+	public Result<Integer> okChain() {
+		return Result.of(() -> value).process(n -> n + 1).process(n -> n * 2).process(n -> n - 3);
+	}
+
+	@Benchmark
+	public LegacyResult<Integer> legacyOkChain() {
+		return LegacyResult.of(() -> value).process(n -> n + 1).process(n -> n * 2).process(n -> n - 3);
+	}
+
+	@Benchmark
+	public Result<Integer> ngChain() {
+		return Result.<Integer> of(() -> {
+			throw failure;
+		}).process(n -> n + 1).process(n -> n * 2).process(n -> n - 3);
+	}
+
+	@Benchmark
+	public LegacyResult<Integer> legacyNgChain() {
+		return LegacyResult.<Integer> of(() -> {
+			throw failure;
+		}).process(n -> n + 1).process(n -> n * 2).process(n -> n - 3);
+	}
+
+	/**
+	 * ベンチマークを実行します。
+	 *
+	 * @param args 使用しません
+	 * @throws RunnerException ベンチマークの実行に失敗した場合
+	 */
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(ResultBenchmark.class.getSimpleName())
+				.addProfiler("gc")
+				.build()).run();
+	}
+
+	/**
+	 * 以前の実装のリザルト（比較用）。
+	 *
+	 * @param <T> 処理結果の型
+	 */
+	public static final class LegacyResult<T> {
+
+		/** 実行結果。 */
+		private final Optional<T> value;
+
+		/** 発生した例外。 */
+		private final Optional<Exception> exception;
+
+		/**
+		 * 処理を行い、リザルトのインスタンスを作成します。
+		 *
+		 * @param invoker 処理を行う関数
+		 * @return リザルトのインスタンス
+		 */
+		static <T> LegacyResult<T> of(Invoker<? extends T> invoker) {
+			try {
+				return new LegacyResult<>(Optional.of(invoker.invoke()), Optional.empty());
+			} catch (Exception e) {
+				return new LegacyResult<>(Optional.empty(), Optional.of(e));
+			}
+		}
+
+		/**
+		 * コンストラクタ。
+		 *
+		 * @param value 実行結果
+		 * @param exception 発生した例外
+		 */
+		private LegacyResult(Optional<T> value, Optional<Exception> exception) {
+			this.value = value;
+			this.exception = exception;
+		}
+
+		/**
+		 * 例外が発生しなかった場合、処理結果をさらに処理します。
+		 *
+		 * @param processor 処理結果をさらに処理する関数
+		 * @return 処理した後のインスタンス
+		 */
+		<R> LegacyResult<R> process(Processor<? super T, ? extends R> processor) {
+			return (value.isPresent())
+					? of(() -> processor.process(value.get()))
+					: new LegacyResult<>(Optional.empty(), exception);
+		}
+	}
+}
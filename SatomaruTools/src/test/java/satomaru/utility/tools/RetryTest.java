@@ -0,0 +1,181 @@
+package satomaru.utility.tools;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * 再試行の方針のテスト。
+ */
+public class RetryTest {
+
+	/** テストで用いる Executor。 */
+	private ExecutorService executor;
+
+	@Before
+	public void setUp() {
+		executor = Executors.newFixedThreadPool(2);
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdown();
+	}
+
+	/**
+	 * 成功するまで再試行するテスト。
+	 */
+	@Test
+	public void testAttempts() {
+		AtomicInteger count = new AtomicInteger();
+
+		Result<String> result = Result.of(() -> {
+			if (count.incrementAndGet() < 3) {
+				throw new IOException("retry");
+			}
+
+			return "ok";
+		}, Retry.exponential(Duration.ofMillis(1), Duration.ofMillis(2)).maxAttempts(5).jitter(0.5));
+
+		assertEquals("ok", result.value().get());
+		assertEquals(3, result.attempts());
+		assertEquals(3, count.get());
+	}
+
+	/**
+	 * 最大試行回数に達した場合のテスト。
+	 */
+	@Test
+	public void testMaxAttempts() {
+		AtomicInteger count = new AtomicInteger();
+
+		Result<String> result = Result.of(() -> {
+			count.incrementAndGet();
+			throw new IOException("always");
+		}, Retry.fixed(Duration.ofMillis(1)).maxAttempts(4));
+
+		assertTrue(result.isNg());
+		assertEquals(4, result.attempts());
+		assertEquals(4, count.get());
+		assertEquals(1, Result.of(() -> "once").attempts());
+	}
+
+	/**
+	 * 対象外の例外では再試行しないテスト。
+	 */
+	@Test
+	public void testOn() {
+		AtomicInteger count = new AtomicInteger();
+
+		Result<String> result = Result.of(() -> {
+			count.incrementAndGet();
+			throw new IllegalStateException("fatal");
+		}, Retry.fixed(Duration.ofMillis(1)).on(IOException.class));
+
+		assertTrue(result.exception().get() instanceof IllegalStateException);
+		assertEquals(1, result.attempts());
+		assertEquals(1, count.get());
+	}
+
+	/**
+	 * 制限時間を過ぎる場合は諦めるテスト。
+	 */
+	@Test
+	public void testDeadline() {
+		AtomicInteger count = new AtomicInteger();
+
+		// 最初の再試行までの間隔が制限時間より長いので、負荷に関係なく1回で諦める
+		Result<String> result = Result.of(() -> {
+			count.incrementAndGet();
+			throw new IOException("slow");
+		}, Retry.fixed(Duration.ofSeconds(10)).maxAttempts(10).deadline(Duration.ofSeconds(5)));
+
+		assertTrue(result.isNg());
+		assertEquals(1, result.attempts());
+		assertEquals(1, count.get());
+
+		// 制限時間に十分な余裕があれば、最大試行回数まで再試行する
+		Result<String> retried = Result.of(() -> {
+			throw new IOException("slow");
+		}, Retry.fixed(Duration.ofMillis(1)).maxAttempts(3).deadline(Duration.ofMinutes(1)));
+
+		assertEquals(3, retried.attempts());
+	}
+
+	/**
+	 * 非同期に再試行するテスト。
+	 */
+	@Test
+	public void testAsync() {
+		AtomicInteger count = new AtomicInteger();
+		Retry retry = Retry.fixed(Duration.ofMillis(1)).maxAttempts(3);
+
+		Result<Integer> result = AsyncResult.of(() -> {
+			if (count.incrementAndGet() < 2) {
+				throw new IOException("retry");
+			}
+
+			return "12";
+		}, retry, executor)
+				.process(Integer::valueOf, retry)
+				.join();
+
+		assertEquals(Integer.valueOf(12), result.value().get());
+		assertEquals(2, count.get());
+		assertEquals(1, result.attempts());
+	}
+
+	/**
+	 * Executor が受け付けない場合も、Future が完了するテスト。
+	 */
+	@Test(timeout = 5000)
+	public void testAsyncRejected() {
+		ExecutorService stopped = Executors.newSingleThreadExecutor();
+		stopped.shutdown();
+
+		Result<String> result = AsyncResult.<String> of(() -> "never", Retry.fixed(Duration.ofMillis(1)), stopped).join();
+		assertTrue(result.exception().get() instanceof RejectedExecutionException);
+	}
+
+	/**
+	 * 不正な間隔のテスト。
+	 */
+	@Test
+	public void testInvalidDuration() {
+		assertInvalid(() -> Retry.fixed(Duration.ofMillis(-1)));
+		assertInvalid(() -> Retry.exponential(Duration.ofMillis(-1), Duration.ofMillis(1)));
+		assertInvalid(() -> Retry.exponential(Duration.ofMillis(2), Duration.ofMillis(1)));
+		assertInvalid(() -> Retry.fixed(Duration.ofMillis(1)).deadline(Duration.ofMillis(-1)));
+	}
+
+	/**
+	 * 不正な設定のテスト。
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidJitter() {
+		Retry.fixed(Duration.ofMillis(1)).jitter(1.5);
+	}
+
+	/**
+	 * IllegalArgumentException が発生することを検査します。
+	 *
+	 * @param runnable 検査する処理
+	 */
+	private static void assertInvalid(Runnable runnable) {
+		try {
+			runnable.run();
+			fail();
+		} catch (IllegalArgumentException e) {
+			// 期待通り
+		}
+	}
+}
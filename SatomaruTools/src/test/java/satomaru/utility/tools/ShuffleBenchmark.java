@@ -0,0 +1,77 @@
+package satomaru.utility.tools;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 従来の Collections.shuffle と、並列シャッフルを比較するベンチマーク。
+ *
+ * <p>
+ * {@code mvn test-compile} の後、テストのクラスパスで {@link #main(String[])} を実行してください。
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class ShuffleBenchmark {
+
+	/** 要素数。 */
+	@Param({ "1000000", "10000000" })
+	public int size;
+
+	/** シャッフルする配列。 */
+	private Object[] array;
+
+	/**
+	 * 配列を準備します。
+	 */
+	@Setup(Level.Invocation)
+	public void setUp() {
+		if (array == null || array.length != size) {
+			array = new Object[size];
+			Arrays.setAll(array, Integer::valueOf);
+		}
+	}
+
+	@Benchmark
+	public Object[] collectionsShuffle() {
+		Collections.shuffle(Arrays.asList(array));
+		return array;
+	}
+
+	@Benchmark
+	public Object[] parallelShuffle() {
+		ParallelShuffle.shuffle(array, Randomizer.threadLocal());
+		return array;
+	}
+
+	/**
+	 * ベンチマークを実行します。
+	 *
+	 * @param args 使用しません
+	 * @throws RunnerException ベンチマークの実行に失敗した場合
+	 */
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(ShuffleBenchmark.class.getSimpleName()).build()).run();
+	}
+}